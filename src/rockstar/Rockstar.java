@@ -1,13 +1,18 @@
 package rockstar;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import rockstar.debugger.RockstarDebugger;
+import rockstar.engine.AotCompiler;
+import rockstar.engine.Engine;
 import rockstar.parser.Parser;
+import rockstar.parser.ProgramCache;
 import rockstar.repl.RockstarRepl;
 import rockstar.runtime.Environment;
 import rockstar.runtime.FileContext;
@@ -15,6 +20,7 @@ import rockstar.runtime.LoggerListener;
 import rockstar.runtime.RockNumber;
 import rockstar.runtime.Utils;
 import rockstar.statement.Program;
+import rockstar.test.RockstarBenchmark;
 import rockstar.test.RockstarTest;
 
 /**
@@ -32,7 +38,10 @@ public class Rockstar {
     private static final String CLI_WRAPPER = "rockstar";
     public static final String CLI_HEADER = "Rockstar Java by gaborsch, Version "+VERSION+" (with OOP)";
 
-    private static final List<String> COMMANDS = (Arrays.asList(new String[]{"help", "run", "list", "repl", "test", "debug"}));
+    private static final List<String> COMMANDS = (Arrays.asList(new String[]{"help", "run", "list", "repl", "test", "debug", "compile", "precompile", "bench"}));
+
+    // options with a positive integer value
+    private static final List<String> NUMBER_OPTIONS = Arrays.asList("--stack-size", "--max-depth");
 
     public static void main(String[] args) {
 
@@ -73,11 +82,7 @@ public class Rockstar {
                 // "-" is a special parameter
                 command = "repl";
             } else if (a.startsWith("-")) {
-                // -o or --option, also -o=value
-                int eqIdx = a.indexOf('=');
-                String key = (eqIdx >= 0) ? a.substring(0, eqIdx): a;
-                String value = (eqIdx >= 0) ? a.substring(eqIdx+1): a;
-                options.put(key, value);
+                addOption(options, a);
             } else {
                 // normal path name
                 files.add(a);
@@ -96,9 +101,13 @@ public class Rockstar {
         }
         
         setGlobalOptions(options);
+        String invalidOption = checkOptions(options);
 
         if (command.equals("help")) {
             doHelp(files.isEmpty() ? null : files.get(0), options);
+        } else if (invalidOption != null) {
+            System.err.println("Invalid option value: " + invalidOption + " (a positive number is expected)");
+            doHelp(command, options);
         } else {            
             try {
                 switch (command) {
@@ -119,6 +128,15 @@ public class Rockstar {
                     case "test":
                         test(files, options);
                         break;
+                    case "compile":
+                        compile(files, options);
+                        break;
+                    case "precompile":
+                        precompile(files, options);
+                        break;
+                    case "bench":
+                        bench(files, options);
+                        break;
                     default:
                         System.err.println("Unknown command: " + command);
                         doHelp(files.isEmpty() ? null : files.get(0), options);
@@ -150,6 +168,16 @@ public class Rockstar {
                 System.out.println("        Log the execution path and expression evaluations to the stdout");
                 System.out.println("    --dec64");
                 System.out.println("        Uses Dec64 arithmetic instead of the default IEEE754 (Double precision)");
+                System.out.println("    --engine=tree|closure");
+                System.out.println("        Execution engine. Default: tree (AST interpreter). The closure engine compiles the program before execution, compiled statements are not logged");
+                System.out.println("    --opt=0|1");
+                System.out.println("        Optimizer: constant expressions are calculated before execution (not logged). Default: 1");
+                System.out.println("    --stack-size=<MB>");
+                System.out.println("        Run the program on a thread with the given stack size, for deep recursion. Default: the stack of the main thread");
+                System.out.println("    --max-depth=<n>");
+                System.out.println("        Maximum function call depth. Default: limited by the stack size only");
+                System.out.println("    --no-cache");
+                System.out.println("        Always parse the source, do not use the precompiled .rockc files");
             }
         }
         if (cmd == null || cmd.equals("debug")) {
@@ -199,6 +227,7 @@ public class Rockstar {
                 System.out.println("    Files under 'parse-error' or 'failures' directory (and subdirectories) must produce parse error");
                 System.out.println("    Files under 'runtime-error' directory (and subdirectories) must produce runtime error.");
                 System.out.println("    All correct tests must compile and run. Expected output is in *.rock.out files, input is taken from *.rock.in' files, if present.");
+                System.out.println("    Execution options of a test (e.g. --max-depth=50, --stack-size=64) are taken from *.rock.opts files, if present.");
                 System.out.println();
                 System.out.println("Options:");
                 System.out.println("    -a, --all-directories");
@@ -211,6 +240,55 @@ public class Rockstar {
                 System.out.println("        Very verbose mode, print more information for failed tests.");
                 System.out.println("    -w, --write-output");
                 System.out.println("        Write actual output into *.rock.current file, if the output does not match the expected.");
+                System.out.println("    --engine=tree|closure|aot");
+                System.out.println("        Execution engine of the tests. Default: tree (AST interpreter). The aot engine compiles each program to a JVM class in memory");
+                System.out.println("    --precompiled");
+                System.out.println("        Each test is written and loaded like a precompiled .rockc file before execution.");
+                System.out.println("    --infinite-loops");
+                System.out.println("        Loops can run infinitely. Default: maximum " + MAX_LOOP_ITERATIONS + " cycles per loop (for safety reasons)");
+            }
+        }
+        if (cmd == null || cmd.equals("compile")) {
+            System.out.println(CLI_WRAPPER + " compile [--options ...] <filename> ...");
+            System.out.println("    Compile programs to runnable jar files. The jar contains the Rockstar runtime, run it with `java -jar <jarfile> [--options ...]`.");
+            if (cmd != null) {
+                System.out.println("    Functions and the basic statements are compiled to JVM code, other parts are interpreted. Requires a JDK.");
+                System.out.println("Options:");
+                System.out.println("    -o=<jarfile>, --output=<jarfile>");
+                System.out.println("        Name of the jar file, if a single program is compiled. Default: <ProgramName>.jar");
+            }
+        }
+        if (cmd == null || cmd.equals("precompile")) {
+            System.out.println(CLI_WRAPPER + " precompile [--options ...] <file-or-dirname> ...");
+            System.out.println("    Precompile programs to .rockc files, next to the sources. Directories are processed recursively.");
+            if (cmd != null) {
+                System.out.println("    The run and list commands load the parsed program from the .rockc file, if the source is not changed since,");
+                System.out.println("    and refresh the .rockc file, if it is stale. Imported classes are loaded from the .rockc file, too.");
+                System.out.println("    The .rockc file is specific to the interpreter version and the number mode.");
+                System.out.println("Options:");
+                System.out.println("    --dec64");
+                System.out.println("        Precompile for Dec64 arithmetic");
+            }
+        }
+        if (cmd == null || cmd.equals("bench")) {
+            System.out.println(CLI_WRAPPER + " bench [--options ...] <file-or-dirname> ...");
+            System.out.println("    Benchmark programs. Program output is discarded, input is taken from *.rock.in files, if present.");
+            if (cmd != null) {
+                System.out.println("Options:");
+                System.out.println("    --mode=hooks|memory|control|alloc|parse");
+                System.out.println("        hooks: execution time without and with the listener hooks (default)");
+                System.out.println("        memory: heap usage of large arrays (no files needed)");
+                System.out.println("        control: recursive calls and loops with break/continue (no files needed)");
+                System.out.println("        alloc: allocated bytes per run and per function call (default: recursive fibonacci)");
+                System.out.println("        parse: parsed lines per second, and the load time of the precompiled program (default: generated program)");
+                System.out.println("    --size=<n>");
+                System.out.println("        Number of array elements in memory mode. Default: 1000000");
+                System.out.println("    --lines=<n>");
+                System.out.println("        Number of lines of the generated program in parse mode. Default: 100000");
+                System.out.println("    --warmup=<n>");
+                System.out.println("        Number of runs before the measurement. Default: 3");
+                System.out.println("    --iterations=<n>");
+                System.out.println("        Number of measured runs. Default: 10");
                 System.out.println("    --infinite-loops");
                 System.out.println("        Loops can run infinitely. Default: maximum " + MAX_LOOP_ITERATIONS + " cycles per loop (for safety reasons)");
             }
@@ -229,18 +307,35 @@ public class Rockstar {
             throw new IllegalArgumentException("Missing files");
         }
 
-        LoggerListener logger = new LoggerListener(options);
+        String stackSize = options.get("--stack-size");
+        if (stackSize != null) {
+            // deep recursion needs a larger stack than the main thread has
+            Thread runner = new Thread(null, () -> execute(files, options), "rockstar", getStackSize(options));
+            runner.start();
+            try {
+                runner.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            execute(files, options);
+        }
+    }
 
+    private void execute(List<String> files, Map<String, String> options) {
         Environment env = new Environment(System.in, System.out, System.err, options);
-        env.setListener(logger);
+        if (LoggerListener.isLoggingRequested(options)) {
+            // instrumented mode only if logging is requested
+            env.setListener(new LoggerListener(options));
+        }
 
         FileContext prgCtx = new FileContext(env);
         FileContext ctx;
         for (String filename : files) {
             try {
-                Program prg = new Parser(filename).parse();
+                Program prg = ProgramCache.parse(filename);
                 ctx = new FileContext(prgCtx, filename);
-                prg.execute(ctx);
+                Engine.getEngine(env).execute(prg, ctx);
             } catch (FileNotFoundException ex) {
                 System.err.println("File not found: " + filename);
             } catch (RuntimeException re) {
@@ -260,7 +355,7 @@ public class Rockstar {
 
         files.forEach((filename) -> {
             try {
-                Program prg = new Parser(filename).parse();
+                Program prg = ProgramCache.parse(filename);
                 System.out.println(prg.listProgram(lineNums, !explainOnly, explain || explainOnly));
             } catch (FileNotFoundException ex) {
                 System.err.println("File not found: " + filename);
@@ -279,6 +374,79 @@ public class Rockstar {
         });
     }
 
+    public void compile(List<String> files, Map<String, String> options) {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("Missing files");
+        }
+        String output = options.getOrDefault("-o", options.get("--output"));
+
+        files.forEach((filename) -> {
+            try {
+                Program prg = new Parser(filename).parse();
+                String className = AotCompiler.getClassName(filename);
+                File jarFile = new File((output != null && files.size() == 1) ? output : AotCompiler.getProgramName(filename) + ".jar");
+                AotCompiler compiler = new AotCompiler(className);
+                compiler.compile(prg);
+                compiler.writeJar(new File(filename), jarFile);
+                System.out.println("Compiled " + filename + " to " + jarFile.getPath());
+            } catch (FileNotFoundException ex) {
+                System.err.println("File not found: " + filename);
+            } catch (IOException ex) {
+                System.err.println("Error writing jar file: " + ex.getMessage());
+            } catch (RuntimeException re) {
+                System.err.println("Error: " + re.getMessage());
+            }
+        });
+    }
+
+    public void precompile(List<String> files, Map<String, String> options) {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("Missing files");
+        }
+        // written, up to date, failed
+        int[] counts = new int[3];
+        files.forEach((path) -> {
+            precompile(new File(path), counts);
+        });
+        System.out.println("Precompiled " + counts[0] + " files, " + counts[1] + " up to date, " + counts[2] + " failed");
+    }
+
+    private void precompile(File file, int[] counts) {
+        if (file.isDirectory()) {
+            File[] dirFiles = file.listFiles();
+            if (dirFiles != null) {
+                Arrays.sort(dirFiles);
+                for (File f : dirFiles) {
+                    if (f.isDirectory() || f.getName().endsWith(".rock")) {
+                        precompile(f, counts);
+                    }
+                }
+            }
+            return;
+        }
+        try {
+            counts[ProgramCache.precompile(file) ? 0 : 1]++;
+        } catch (FileNotFoundException ex) {
+            System.err.println("File not found: " + file.getPath());
+            counts[2]++;
+        } catch (IOException ex) {
+            System.err.println("Error writing " + ProgramCache.getCacheFile(file).getPath() + ": " + ex.getMessage());
+            counts[2]++;
+        } catch (RuntimeException re) {
+            System.err.println("Error in " + file.getPath() + ": " + re.getMessage());
+            counts[2]++;
+        }
+    }
+
+    public void bench(List<String> files, Map<String, String> options) {
+        String mode = options.get("--mode");
+        if (files.isEmpty() && !RockstarBenchmark.MODE_MEMORY.equals(mode) && !RockstarBenchmark.MODE_CONTROL.equals(mode)
+                && !RockstarBenchmark.MODE_ALLOC.equals(mode) && !RockstarBenchmark.MODE_PARSE.equals(mode)) {
+            throw new IllegalArgumentException("Missing files");
+        }
+        new RockstarBenchmark(options).execute(files);
+    }
+
     public void repl(List<String> files, Map<String, String> options) {
         new RockstarRepl(options).repl(files);
     }
@@ -291,5 +459,55 @@ public class Rockstar {
     public static void setGlobalOptions(Map<String, String> options) {
         boolean dec64 = options.containsKey("--dec64");
         RockNumber.setDec64(dec64);
+        ProgramCache.setEnabled(!options.containsKey("--no-cache"));
     }    
+
+    /**
+     * Adds a command line option: -o or --option, also -o=value
+     *
+     * @param options
+     * @param a the argument
+     */
+    public static void addOption(Map<String, String> options, String a) {
+        int eqIdx = a.indexOf('=');
+        String key = (eqIdx >= 0) ? a.substring(0, eqIdx): a;
+        String value = (eqIdx >= 0) ? a.substring(eqIdx+1): a;
+        options.put(key, value);
+    }
+
+    /**
+     * Checks the values of the number options
+     *
+     * @param options
+     * @return the first option with an invalid value, or null if all values
+     * are valid
+     */
+    public static String checkOptions(Map<String, String> options) {
+        for (String key : NUMBER_OPTIONS) {
+            String value = options.get(key);
+            if (value != null) {
+                try {
+                    if (Integer.parseInt(value) > 0) {
+                        continue;
+                    }
+                } catch (NumberFormatException nfe) {
+                    // invalid
+                }
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The stack size of the program thread, set by the --stack-size option (in
+     * megabytes)
+     *
+     * @param options checked options
+     * @return the stack size in bytes, 0 if not set (the default size)
+     */
+    public static long getStackSize(Map<String, String> options) {
+        String stackSize = options.get("--stack-size");
+        return (stackSize == null) ? 0L : Long.parseLong(stackSize) * 1024L * 1024L;
+    }
 }
@@ -8,8 +8,8 @@ package rockstar;
 import java.io.FileNotFoundException;
 import java.util.HashMap;
 import java.util.Map;
+import rockstar.engine.Engine;
 import rockstar.parser.Parser;
-import rockstar.runtime.BlockContextListener;
 import rockstar.runtime.Environment;
 import rockstar.runtime.FileContext;
 import rockstar.runtime.LoggerListener;
@@ -26,9 +26,7 @@ public class RockstarApi {
 
     public RockstarApi() {
         options = new HashMap<>();
-        BlockContextListener logger = new LoggerListener(options);
         env = new Environment(System.in, System.out, System.err, options);
-        env.setListener(logger);
     }
 
     public Map<String, String> getOptions() {
@@ -50,13 +48,16 @@ public class RockstarApi {
     
     public void run(String filename, String fileContent) {
         Rockstar.setGlobalOptions(options);
+        if (env.getListener() == null && LoggerListener.isLoggingRequested(options)) {
+            env.setListener(new LoggerListener(options));
+        }
 
         FileContext prgCtx = new FileContext(env);
         FileContext ctx;
         try {
             Program prg = new Parser(fileContent, filename).parse();
             ctx = new FileContext(prgCtx, filename);
-            prg.execute(ctx);
+            Engine.getEngine(env).execute(prg, ctx);
         } catch (RuntimeException re) {
             System.err.println("Error: " + re.getMessage());
         }
@@ -0,0 +1,252 @@
+package rockstar.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import rockstar.Rockstar;
+import rockstar.runtime.RockstarRuntimeException;
+import rockstar.statement.Program;
+
+/**
+ * Ahead-of-time compiler: translates a program into a JVM class through the
+ * generated Java source, and packages it into a runnable jar with the Rockstar
+ * runtime.
+ *
+ * @author Gabor
+ */
+public class AotCompiler {
+
+    private final String className;
+    private final Map<String, byte[]> classes = new LinkedHashMap<>();
+
+    /**
+     * @param className the name of the generated main class
+     */
+    public AotCompiler(String className) {
+        this.className = className;
+    }
+
+    // the generated class names never clash with the java.lang classes and
+    // the imports of the generated source (e.g. string.rock, override.rock)
+    private static final String CLASS_PREFIX = "Rock_";
+
+    /**
+     * Derives a valid Java class name from a program file name
+     *
+     * @param filename
+     * @return
+     */
+    public static String getClassName(String filename) {
+        return CLASS_PREFIX + getProgramName(filename);
+    }
+
+    /**
+     * The name of the program: the file name without extension, in camel case
+     * (the default name of the jar file)
+     *
+     * @param filename
+     * @return
+     */
+    public static String getProgramName(String filename) {
+        String baseName = new File(filename).getName();
+        int dotIdx = baseName.indexOf('.');
+        if (dotIdx > 0) {
+            baseName = baseName.substring(0, dotIdx);
+        }
+        StringBuilder sb = new StringBuilder();
+        boolean upper = true;
+        for (char c : baseName.toCharArray()) {
+            if (Character.isLetterOrDigit(c) && c < 128) {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            } else {
+                upper = true;
+            }
+        }
+        if (sb.length() == 0) {
+            sb.append("Program");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Compiles the program into class files, kept in memory
+     *
+     * @param prg
+     */
+    public void compile(Program prg) {
+        String source = new JavaGenerator(className).generate(prg);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new RockstarRuntimeException("Java compiler is not available, a JDK is required");
+        }
+        StandardJavaFileManager stdManager = compiler.getStandardFileManager(null, null, null);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<JavaFileManager>(stdManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return new ByteArrayOutputStream() {
+                            @Override
+                            public void close() {
+                                classes.put(name, toByteArray());
+                            }
+                        };
+                    }
+                };
+            }
+        };
+        JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        String classPath = getRuntimeLocation().getPath();
+        StringWriter errors = new StringWriter();
+        boolean success = compiler.getTask(errors, fileManager, null,
+                Arrays.asList("-classpath", classPath, "-g:source,lines", "-nowarn"),
+                null, Arrays.asList(sourceFile)).call();
+        if (!success) {
+            throw new RockstarRuntimeException("Compilation failed: " + errors);
+        }
+    }
+
+    /**
+     * Loads the compiled program, for execution in the current JVM
+     *
+     * @return
+     */
+    public CompiledProgram load() {
+        ClassLoader loader = new ClassLoader(AotCompiler.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        try {
+            return (CompiledProgram) loader.loadClass(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new RockstarRuntimeException("Cannot load compiled program: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Writes a runnable jar with the compiled program, its source (for the
+     * interpreted parts) and the Rockstar runtime
+     *
+     * @param sourceFile the program source
+     * @param jarFile
+     * @throws IOException
+     */
+    public void writeJar(File sourceFile, File jarFile) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, className);
+        Set<String> entries = new HashSet<>();
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile), manifest)) {
+            entries.add(JarFile.MANIFEST_NAME);
+            for (Map.Entry<String, byte[]> cls : classes.entrySet()) {
+                addEntry(jar, entries, cls.getKey().replace('.', '/') + ".class", cls.getValue());
+            }
+            addEntry(jar, entries, className + ".rock", Files.readAllBytes(sourceFile.toPath()));
+
+            // the runtime, including the Rockstar libraries
+            File runtime = getRuntimeLocation();
+            if (runtime.isDirectory()) {
+                addDirectory(jar, entries, runtime, "");
+            } else {
+                try (JarFile runtimeJar = new JarFile(runtime)) {
+                    Enumeration<JarEntry> runtimeEntries = runtimeJar.entries();
+                    while (runtimeEntries.hasMoreElements()) {
+                        JarEntry entry = runtimeEntries.nextElement();
+                        if (!entry.isDirectory() && !entry.getName().startsWith("META-INF/")) {
+                            try (InputStream is = runtimeJar.getInputStream(entry)) {
+                                addEntry(jar, entries, entry.getName(), readAll(is));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void addDirectory(JarOutputStream jar, Set<String> entries, File dir, String prefix) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                addDirectory(jar, entries, file, prefix + file.getName() + "/");
+            } else {
+                try (InputStream is = new FileInputStream(file)) {
+                    addEntry(jar, entries, prefix + file.getName(), readAll(is));
+                }
+            }
+        }
+    }
+
+    private void addEntry(JarOutputStream jar, Set<String> entries, String name, byte[] content) throws IOException {
+        if (entries.add(name)) {
+            jar.putNextEntry(new JarEntry(name));
+            jar.write(content);
+            jar.closeEntry();
+        }
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int len;
+        while ((len = is.read(buf)) > 0) {
+            os.write(buf, 0, len);
+        }
+        return os.toByteArray();
+    }
+
+    /**
+     * The jar file or class directory of the Rockstar runtime
+     */
+    private static File getRuntimeLocation() {
+        try {
+            return new File(Rockstar.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException ex) {
+            throw new RockstarRuntimeException("Cannot locate the Rockstar runtime: " + ex.getMessage());
+        }
+    }
+
+}
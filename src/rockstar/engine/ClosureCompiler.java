@@ -0,0 +1,308 @@
+package rockstar.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import rockstar.Rockstar;
+import rockstar.expression.ComparisonExpression;
+import rockstar.expression.CompoundExpression;
+import rockstar.expression.ConstantExpression;
+import rockstar.expression.DivideExpression;
+import rockstar.expression.Expression;
+import rockstar.expression.ListExpression;
+import rockstar.expression.LogicalExpression;
+import rockstar.expression.MinusExpression;
+import rockstar.expression.MultiplyExpression;
+import rockstar.expression.NotExpression;
+import rockstar.expression.PlusExpression;
+import rockstar.expression.UnaryMinusExpression;
+import rockstar.expression.VariableReference;
+import rockstar.parser.Line;
+import rockstar.runtime.RockstarBreakException;
+import rockstar.runtime.RockstarContinueException;
+import rockstar.runtime.RockstarReturnException;
+import rockstar.runtime.RockstarRuntimeException;
+import rockstar.runtime.Value;
+import rockstar.statement.AssignmentStatement;
+import rockstar.statement.Block;
+import rockstar.statement.ElseStatement;
+import rockstar.statement.ExpressionStatement;
+import rockstar.statement.FunctionBlock;
+import rockstar.statement.IfStatement;
+import rockstar.statement.OutputStatement;
+import rockstar.statement.ReturnStatement;
+import rockstar.statement.Statement;
+import rockstar.statement.WhileStatement;
+
+/**
+ * Compiles a parsed program into a tree of closures. Each closure captures its
+ * already compiled children and operator, so there is no dispatch on the node
+ * types at runtime. Nodes without a specialized closure fall back to the tree
+ * walker (Statement.execute and Expression.evaluate).
+ *
+ * Compiled nodes do not call the BlockContextListener hooks.
+ *
+ * @author Gabor
+ */
+public class ClosureCompiler {
+
+    private static final CompiledStatement NOOP = ctx -> {
+    };
+
+    /**
+     * Compiles the statements of a block. Function bodies found in the block
+     * are compiled, too, and attached to their FunctionBlock.
+     *
+     * @param block
+     * @return
+     */
+    public CompiledStatement compile(Block block) {
+        return compileBlock(block.getStatements());
+    }
+
+    private CompiledStatement compileBlock(List<Statement> statements) {
+        List<CompiledStatement> compiledList = new ArrayList<>(statements.size());
+        List<Line> lineList = new ArrayList<>(statements.size());
+        for (Statement stmt : statements) {
+            if (stmt instanceof ElseStatement) {
+                // Else blocks are compiled and executed by their If statement
+                continue;
+            }
+            compiledList.add(compileStatement(stmt));
+            lineList.add(stmt.getLine());
+        }
+        CompiledStatement[] compiled = compiledList.toArray(new CompiledStatement[compiledList.size()]);
+        Line[] lines = lineList.toArray(new Line[lineList.size()]);
+        if (compiled.length == 0) {
+            return NOOP;
+        }
+        return ctx -> {
+            for (int i = 0; i < compiled.length; i++) {
+                try {
+                    compiled[i].execute(ctx);
+                } catch (RockstarRuntimeException rre) {
+                    rre.addStacktraceLine(lines[i], ctx);
+                    throw rre;
+                }
+            }
+        };
+    }
+
+    private CompiledStatement compileStatement(Statement stmt) {
+        if (stmt instanceof FunctionBlock) {
+            FunctionBlock function = (FunctionBlock) stmt;
+            function.setCompiledBody(compile(function));
+            // the definition itself is not compiled
+            return function::execute;
+        }
+        if (stmt instanceof IfStatement) {
+            return compileIf((IfStatement) stmt);
+        }
+        if (stmt instanceof WhileStatement) {
+            return compileWhile((WhileStatement) stmt);
+        }
+        if (stmt instanceof AssignmentStatement) {
+            return compileAssignment((AssignmentStatement) stmt);
+        }
+        if (stmt instanceof OutputStatement) {
+            CompiledExpression expr = compileExpression(((OutputStatement) stmt).getExpression());
+            return ctx -> ctx.getEnv().getOutput().println(expr.evaluate(ctx).asScalar().getString());
+        }
+        if (stmt instanceof ReturnStatement && ((ReturnStatement) stmt).isTailCall()) {
+            // the tail call restarts the function, implemented by the statement
+            return stmt::execute;
+        }
+        if (stmt instanceof ReturnStatement) {
+            CompiledExpression expr = compileExpression(((ReturnStatement) stmt).getExpression());
+            return ctx -> {
+                throw new RockstarReturnException(expr.evaluate(ctx));
+            };
+        }
+        if (stmt instanceof ExpressionStatement) {
+            CompiledExpression expr = compileExpression(((ExpressionStatement) stmt).getExpression());
+            return ctx -> expr.evaluate(ctx);
+        }
+        if (stmt instanceof Block) {
+            // the block is interpreted, but its functions can be compiled
+            compileFunctions((Block) stmt);
+        }
+        return stmt::execute;
+    }
+
+    /**
+     * Compiles the functions defined in an interpreted block
+     *
+     * @param block
+     */
+    private void compileFunctions(Block block) {
+        for (Statement stmt : block.getStatements()) {
+            if (stmt instanceof FunctionBlock) {
+                FunctionBlock function = (FunctionBlock) stmt;
+                function.setCompiledBody(compile(function));
+            } else if (stmt instanceof Block) {
+                compileFunctions((Block) stmt);
+            }
+        }
+    }
+
+    private CompiledStatement compileIf(IfStatement stmt) {
+        CompiledExpression condition = compileExpression(stmt.getCondition());
+        CompiledStatement thenBlock = compile(stmt);
+        ElseStatement elseStmt = stmt.getElseStatement();
+        if (elseStmt == null) {
+            return ctx -> {
+                if (condition.evaluate(ctx).getBool()) {
+                    thenBlock.execute(ctx);
+                }
+            };
+        }
+        CompiledStatement elseBlock = compile(elseStmt);
+        return ctx -> {
+            if (condition.evaluate(ctx).getBool()) {
+                thenBlock.execute(ctx);
+            } else {
+                elseBlock.execute(ctx);
+            }
+        };
+    }
+
+    private CompiledStatement compileWhile(WhileStatement stmt) {
+        CompiledExpression condition = compileExpression(stmt.getCondition());
+        CompiledStatement body = compile(stmt);
+        boolean negateCondition = stmt.isNegateCondition();
+        return ctx -> {
+            stmt.enterLoop();
+            int loopCount = 0;
+            boolean isInfiniteLoopsAllowed = (ctx.getEnv().getParameter("--infinite-loops") != null);
+            boolean lastCondition = condition.evaluate(ctx).asBoolean().getBool() ^ negateCondition;
+            while (lastCondition && (isInfiniteLoopsAllowed || loopCount <= Rockstar.MAX_LOOP_ITERATIONS)) {
+                boolean canContinue = true;
+                try {
+                    body.execute(ctx);
+                } catch (RockstarContinueException rce) {
+                    // continue exits the block, but not the loop
+                } catch (RockstarBreakException rbe) {
+                    // break exits the loop, too
+                    canContinue = false;
+                }
+                loopCount++;
+                Value v = condition.evaluate(ctx);
+                lastCondition = canContinue && (v.asBoolean().getBool() ^ negateCondition);
+            }
+            if (!isInfiniteLoopsAllowed && loopCount > Rockstar.MAX_LOOP_ITERATIONS) {
+                throw new RockstarRuntimeException("Loop exceeded " + Rockstar.MAX_LOOP_ITERATIONS + " iterations");
+            }
+        };
+    }
+
+    private CompiledStatement compileAssignment(AssignmentStatement stmt) {
+        Expression variableExpr = stmt.getVariableExpression();
+        CompiledExpression valueExpr = compileExpression(stmt.getValueExpression());
+        if (variableExpr instanceof VariableReference) {
+            VariableReference vref = (VariableReference) variableExpr;
+            return ctx -> ctx.setVariable(vref, valueExpr.evaluate(ctx));
+        }
+        return ctx -> AssignmentStatement.assign(variableExpr, valueExpr.evaluate(ctx), ctx);
+    }
+
+    /**
+     * Compiles an expression
+     *
+     * @param expr
+     * @return
+     */
+    public CompiledExpression compileExpression(Expression expr) {
+        if (expr instanceof ConstantExpression) {
+            Value value = ((ConstantExpression) expr).getValue();
+            return ctx -> value;
+        }
+        if (expr.getClass() == VariableReference.class) {
+            VariableReference vref = (VariableReference) expr;
+            return ctx -> {
+                Value value = ctx.getVariableValue(vref);
+                // undefined variables are handled by the interpreter
+                return (value != null) ? value : vref.evaluate(ctx);
+            };
+        }
+        if (expr instanceof PlusExpression || expr instanceof MinusExpression
+                || expr instanceof MultiplyExpression || expr instanceof DivideExpression) {
+            List<Expression> params = ((CompoundExpression) expr).getParameters();
+            if (!(params.get(1) instanceof ListExpression)) {
+                return compileArithmetic(expr, compileExpression(params.get(0)), compileExpression(params.get(1)));
+            }
+        }
+        if (expr instanceof ComparisonExpression) {
+            return compileComparison((ComparisonExpression) expr);
+        }
+        if (expr instanceof LogicalExpression) {
+            return compileLogical((LogicalExpression) expr);
+        }
+        if (expr instanceof NotExpression) {
+            CompiledExpression e = compileExpression(((NotExpression) expr).getParameters().get(0));
+            return ctx -> e.evaluate(ctx).negate();
+        }
+        if (expr instanceof UnaryMinusExpression) {
+            CompiledExpression e = compileExpression(((UnaryMinusExpression) expr).getParameters().get(0));
+            return ctx -> Value.NULL.minus(e.evaluate(ctx));
+        }
+        // interpreted expression
+        return expr::evaluate;
+    }
+
+    private CompiledExpression compileArithmetic(Expression expr, CompiledExpression e1, CompiledExpression e2) {
+        if (expr instanceof PlusExpression) {
+            return ctx -> e1.evaluate(ctx).plus(e2.evaluate(ctx));
+        }
+        if (expr instanceof MinusExpression) {
+            return ctx -> e1.evaluate(ctx).minus(e2.evaluate(ctx));
+        }
+        if (expr instanceof MultiplyExpression) {
+            return ctx -> e1.evaluate(ctx).multiply(e2.evaluate(ctx));
+        }
+        return ctx -> e1.evaluate(ctx).divide(e2.evaluate(ctx));
+    }
+
+    private CompiledExpression compileComparison(ComparisonExpression expr) {
+        CompiledExpression e1 = compileExpression(expr.getParameters().get(0));
+        CompiledExpression e2 = compileExpression(expr.getParameters().get(1));
+        switch (expr.getType()) {
+            case EQUALS:
+                return ctx -> e1.evaluate(ctx).isEquals(e2.evaluate(ctx));
+            case NOT_EQUALS:
+                return ctx -> e1.evaluate(ctx).isNotEquals(e2.evaluate(ctx));
+            case LESS_THAN:
+                return ctx -> e1.evaluate(ctx).isLessThan(e2.evaluate(ctx));
+            case LESS_OR_EQUALS:
+                return ctx -> e1.evaluate(ctx).isLessOrEquals(e2.evaluate(ctx));
+            case GREATER_THAN:
+                return ctx -> e1.evaluate(ctx).isGreaterThan(e2.evaluate(ctx));
+            case GREATER_OR_EQUALS:
+                return ctx -> e1.evaluate(ctx).isGreaterOrEquals(e2.evaluate(ctx));
+        }
+        return expr::evaluate;
+    }
+
+    private CompiledExpression compileLogical(LogicalExpression expr) {
+        CompiledExpression e1 = compileExpression(expr.getParameters().get(0));
+        CompiledExpression e2 = compileExpression(expr.getParameters().get(1));
+        // short circuit: do not evaluate e2 if not needed
+        switch (expr.getType()) {
+            case AND:
+                return ctx -> {
+                    Value v1 = e1.evaluate(ctx);
+                    return v1.asBoolean().equals(Value.BOOLEAN_TRUE) ? v1.and(e2.evaluate(ctx)) : v1;
+                };
+            case OR:
+                return ctx -> {
+                    Value v1 = e1.evaluate(ctx);
+                    return v1.asBoolean().equals(Value.BOOLEAN_FALSE) ? v1.or(e2.evaluate(ctx)) : v1;
+                };
+            case NOR:
+                return ctx -> {
+                    Value v1 = e1.evaluate(ctx);
+                    return v1.asBoolean().equals(Value.BOOLEAN_FALSE) ? v1.nor(e2.evaluate(ctx)) : Value.BOOLEAN_FALSE;
+                };
+        }
+        return expr::evaluate;
+    }
+
+}
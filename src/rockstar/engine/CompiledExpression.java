@@ -0,0 +1,16 @@
+package rockstar.engine;
+
+import rockstar.runtime.BlockContext;
+import rockstar.runtime.Value;
+
+/**
+ * An expression compiled by the closure engine
+ *
+ * @author Gabor
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+
+    public Value evaluate(BlockContext ctx);
+
+}
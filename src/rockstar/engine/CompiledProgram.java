@@ -0,0 +1,212 @@
+package rockstar.engine;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import rockstar.Rockstar;
+import rockstar.expression.Expression;
+import rockstar.expression.FunctionCall;
+import rockstar.expression.VariableReference;
+import rockstar.parser.Parser;
+import rockstar.runtime.BlockContext;
+import rockstar.runtime.Environment;
+import rockstar.runtime.FileContext;
+import rockstar.runtime.RockstarBreakException;
+import rockstar.runtime.RockstarContinueException;
+import rockstar.runtime.RockstarReturnException;
+import rockstar.runtime.RockstarRuntimeException;
+import rockstar.runtime.RockstarTailCallException;
+import rockstar.runtime.Value;
+import rockstar.statement.Block;
+import rockstar.statement.FunctionBlock;
+import rockstar.statement.Program;
+import rockstar.statement.Statement;
+
+/**
+ * Base class of the programs compiled to JVM classes by the AotCompiler.
+ *
+ * The constructs that are not compiled are executed by the interpreter: their
+ * nodes are looked up by index in the parsed program. The program source is
+ * parsed only when such a node is first used.
+ *
+ * @author Gabor
+ */
+public abstract class CompiledProgram {
+
+    private final String name;
+
+    private Program program = null;
+    private List<Object> nodes = null;
+
+    protected CompiledProgram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Execute the compiled program
+     *
+     * @param ctx
+     */
+    public abstract void execute(BlockContext ctx);
+
+    /**
+     * Sets the already parsed program for the interpreted nodes
+     *
+     * @param program
+     */
+    public void setProgram(Program program) {
+        this.program = program;
+    }
+
+    private Object node(int index) {
+        if (nodes == null) {
+            if (program == null) {
+                String resourceName = getClass().getSimpleName() + ".rock";
+                InputStream is = getClass().getResourceAsStream(resourceName);
+                if (is == null) {
+                    throw new RockstarRuntimeException("Program source " + resourceName + " not found");
+                }
+                program = new Parser(is, name).parse();
+            }
+            nodes = NodeIndex.collect(program);
+        }
+        return nodes.get(index);
+    }
+
+    /**
+     * An interpreted statement
+     *
+     * @param index
+     * @return
+     */
+    protected Statement stmt(int index) {
+        return (Statement) node(index);
+    }
+
+    /**
+     * An interpreted expression
+     *
+     * @param index
+     * @return
+     */
+    protected Expression expr(int index) {
+        return (Expression) node(index);
+    }
+
+    /**
+     * An interpreted loop is entered, its loop-invariant expressions are
+     * calculated again
+     *
+     * @param index
+     */
+    protected void enterLoop(int index) {
+        ((Block) node(index)).enterLoop();
+    }
+
+    protected static FunctionBlock function(String name, CompiledStatement body, VariableReference... parameterRefs) {
+        FunctionBlock function = new FunctionBlock(name);
+        for (VariableReference parameterRef : parameterRefs) {
+            function.addParameterName(parameterRef);
+        }
+        function.setCompiledBody(body);
+        return function;
+    }
+
+    protected static Value getVariable(BlockContext ctx, VariableReference vref) {
+        Value value = ctx.getVariableValue(vref);
+        // undefined variables are handled by the interpreter
+        return (value != null) ? value : vref.evaluate(ctx);
+    }
+
+    protected static void giveBack(Value value) {
+        throw new RockstarReturnException(value);
+    }
+
+    /**
+     * A self tail call restarts the running function with the new parameters,
+     * if the call can be set up
+     *
+     * @param ctx
+     * @param call
+     * @param function the running function
+     */
+    protected static void tailCall(BlockContext ctx, FunctionCall call, FunctionBlock function) {
+        if (call.setupTailCall(ctx, function)) {
+            throw RockstarTailCallException.INSTANCE;
+        }
+    }
+
+    protected static void breakLoop() {
+        throw RockstarBreakException.INSTANCE;
+    }
+
+    protected static void continueLoop() {
+        throw RockstarContinueException.INSTANCE;
+    }
+
+    protected static void discard(Value value) {
+        // the value of an expression statement is not used
+    }
+
+    protected static Value and(Value v1, Supplier<Value> v2) {
+        return v1.asBoolean().equals(Value.BOOLEAN_TRUE) ? v1.and(v2.get()) : v1;
+    }
+
+    protected static Value or(Value v1, Supplier<Value> v2) {
+        return v1.asBoolean().equals(Value.BOOLEAN_FALSE) ? v1.or(v2.get()) : v1;
+    }
+
+    protected static Value nor(Value v1, Supplier<Value> v2) {
+        return v1.asBoolean().equals(Value.BOOLEAN_FALSE) ? v1.nor(v2.get()) : Value.BOOLEAN_FALSE;
+    }
+
+    protected static void output(BlockContext ctx, Value value) {
+        ctx.getEnv().getOutput().println(value.asScalar().getString());
+    }
+
+    protected static boolean isLoopAllowed(BlockContext ctx, int loopCount) {
+        return (ctx.getEnv().getParameter("--infinite-loops") != null) || loopCount <= Rockstar.MAX_LOOP_ITERATIONS;
+    }
+
+    protected static void checkLoopCount(BlockContext ctx, int loopCount) {
+        if (!isLoopAllowed(ctx, loopCount)) {
+            throw new RockstarRuntimeException("Loop exceeded " + Rockstar.MAX_LOOP_ITERATIONS + " iterations");
+        }
+    }
+
+    /**
+     * Runs a compiled program from the command line, with the same options as
+     * the run command
+     *
+     * @param factory creates the program after the global options are set
+     * @param args
+     */
+    public static void main(Supplier<? extends CompiledProgram> factory, String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String a : args) {
+            if (a.startsWith("-")) {
+                int eqIdx = a.indexOf('=');
+                String key = (eqIdx >= 0) ? a.substring(0, eqIdx) : a;
+                String value = (eqIdx >= 0) ? a.substring(eqIdx + 1) : a;
+                options.put(key, value);
+            }
+        }
+        Rockstar.setGlobalOptions(options);
+
+        Environment env = new Environment(System.in, System.out, System.err, options);
+        try {
+            CompiledProgram prg = factory.get();
+            FileContext ctx = new FileContext(new FileContext(env), prg.getName());
+            prg.execute(ctx);
+        } catch (RuntimeException re) {
+            System.err.println("Error: " + re.getMessage());
+        }
+    }
+
+}
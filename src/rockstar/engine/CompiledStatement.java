@@ -0,0 +1,15 @@
+package rockstar.engine;
+
+import rockstar.runtime.BlockContext;
+
+/**
+ * A statement compiled by the closure engine
+ *
+ * @author Gabor
+ */
+@FunctionalInterface
+public interface CompiledStatement {
+
+    public void execute(BlockContext ctx);
+
+}
@@ -0,0 +1,88 @@
+package rockstar.engine;
+
+import rockstar.runtime.BlockContext;
+import rockstar.runtime.Environment;
+import rockstar.runtime.RockstarRuntimeException;
+import rockstar.statement.Program;
+
+/**
+ * Execution engines, selected by the --engine option
+ *
+ * @author Gabor
+ */
+public enum Engine {
+
+    /**
+     * The AST interpreter, the reference engine
+     */
+    TREE("tree"),
+    /**
+     * Compiles the program into closures before execution
+     */
+    CLOSURE("closure"),
+    /**
+     * Compiles the program into a JVM class in memory before execution
+     */
+    AOT("aot");
+
+    public static final String OPTION = "--engine";
+
+    private final String name;
+
+    Engine(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The engine specified in the environment parameters, the default is the
+     * tree walking interpreter
+     *
+     * @param env
+     * @return
+     */
+    public static Engine getEngine(Environment env) {
+        String engineName = env.getParameter(OPTION);
+        if (engineName == null) {
+            return TREE;
+        }
+        for (Engine engine : values()) {
+            if (engine.name.equals(engineName)) {
+                return engine;
+            }
+        }
+        throw new RockstarRuntimeException("Unknown engine: " + engineName);
+    }
+
+    /**
+     * Executes a program with this engine
+     *
+     * @param prg
+     * @param ctx
+     */
+    public void execute(Program prg, BlockContext ctx) {
+        if (Optimizer.isEnabled(ctx.getEnv())) {
+            new Optimizer(ctx.getEnv()).optimize(prg);
+        }
+        switch (this) {
+            case CLOSURE:
+                new ClosureCompiler().compile(prg).execute(ctx);
+                break;
+            case AOT:
+                AotCompiler compiler = new AotCompiler(AotCompiler.getClassName(prg.getName()));
+                compiler.compile(prg);
+                CompiledProgram compiled = compiler.load();
+                // the interpreted parts are taken from the already parsed program
+                compiled.setProgram(prg);
+                compiled.execute(ctx);
+                break;
+            default:
+                prg.execute(ctx);
+                break;
+        }
+    }
+
+}
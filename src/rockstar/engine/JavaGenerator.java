@@ -0,0 +1,512 @@
+package rockstar.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import rockstar.expression.ComparisonExpression;
+import rockstar.expression.CompoundExpression;
+import rockstar.expression.ConstantExpression;
+import rockstar.expression.DivideExpression;
+import rockstar.expression.Expression;
+import rockstar.expression.FunctionCall;
+import rockstar.expression.ListExpression;
+import rockstar.expression.LogicalExpression;
+import rockstar.expression.MinusExpression;
+import rockstar.expression.MultiplyExpression;
+import rockstar.expression.NotExpression;
+import rockstar.expression.PlusExpression;
+import rockstar.expression.UnaryMinusExpression;
+import rockstar.expression.VariableReference;
+import rockstar.runtime.RockNumber;
+import rockstar.runtime.Value;
+import rockstar.statement.AssignmentStatement;
+import rockstar.statement.Block;
+import rockstar.statement.BreakStatement;
+import rockstar.statement.ContinueStatement;
+import rockstar.statement.DecrementStatement;
+import rockstar.statement.ElseStatement;
+import rockstar.statement.ExpressionStatement;
+import rockstar.statement.FunctionBlock;
+import rockstar.statement.IfStatement;
+import rockstar.statement.IncrementStatement;
+import rockstar.statement.OutputStatement;
+import rockstar.statement.Program;
+import rockstar.statement.ReturnStatement;
+import rockstar.statement.Statement;
+import rockstar.statement.WhileStatement;
+
+/**
+ * Generates the Java source of a CompiledProgram subclass from a parsed
+ * program.
+ *
+ * Functions become methods of the generated class, control flow and operators
+ * become Java code, while the values are still handled by Value and
+ * RockNumber. Variables remain in the block contexts, as Rockstar functions
+ * can see the variables of their callers. Constructs without code generation
+ * (e.g. classes, arrays, iterations) are executed by the interpreter.
+ *
+ * @author Gabor
+ */
+public class JavaGenerator {
+
+    private static final String INDENT = "    ";
+
+    // the code of a Java method is limited to 64 KB: the top-level statements
+    // and the field initializations are generated into methods of this size
+    private static final int STATEMENTS_PER_METHOD = 100;
+    private static final int FIELDS_PER_METHOD = 200;
+
+    private static final List<String> IMPORTS = Arrays.asList(
+            "java.util.Arrays",
+            "rockstar.engine.CompiledProgram",
+            "rockstar.expression.ConstantExpression",
+            "rockstar.expression.Expression",
+            "rockstar.expression.FunctionCall",
+            "rockstar.expression.VariableReference",
+            "rockstar.runtime.BlockContext",
+            "rockstar.runtime.RockNumber",
+            "rockstar.runtime.RockstarBreakException",
+            "rockstar.runtime.RockstarContinueException",
+            "rockstar.runtime.RockstarRuntimeException",
+            "rockstar.runtime.Value",
+            "rockstar.statement.AssignmentStatement",
+            "rockstar.statement.DecrementStatement",
+            "rockstar.statement.FunctionBlock",
+            "rockstar.statement.IncrementStatement",
+            "rockstar.statement.Statement");
+
+    private final String className;
+
+    private final Map<Object, Integer> nodeIds = new IdentityHashMap<>();
+    private final Map<String, String> variableFields = new HashMap<>();
+
+    private final StringBuilder fields = new StringBuilder();
+    private final StringBuilder methods = new StringBuilder();
+    private final List<String> initializers = new ArrayList<>();
+    // the size of the stmts array
+    private int stmtCount = 0;
+    // the elements of the values array by their initializers
+    private final Map<String, String> valueElements = new HashMap<>();
+
+    private int fieldCount = 0;
+    private int functionCount = 0;
+    // the field of the function being generated, the target of its tail calls
+    private String currentFunction = null;
+    private int loopCount = 0;
+
+    public JavaGenerator(String className) {
+        this.className = className;
+    }
+
+    /**
+     * Generates the source of the program class
+     *
+     * @param prg
+     * @return the Java source
+     */
+    public String generate(Program prg) {
+        List<Object> nodes = NodeIndex.collect(prg);
+        for (int i = 0; i < nodes.size(); i++) {
+            nodeIds.put(nodes.get(i), i);
+        }
+
+        StringBuilder body = new StringBuilder();
+        List<Statement> statements = prg.getStatements();
+        for (int i = 0; i < statements.size(); i += STATEMENTS_PER_METHOD) {
+            String methodName = "part" + (i / STATEMENTS_PER_METHOD);
+            StringBuilder part = new StringBuilder();
+            for (Statement stmt : statements.subList(i, Math.min(i + STATEMENTS_PER_METHOD, statements.size()))) {
+                generateBlockStatement(stmt, part, 2);
+            }
+            line(body, 2, methodName + "(ctx);");
+            methods.append("\n");
+            methods.append(INDENT).append("private void ").append(methodName).append("(BlockContext ctx) {\n");
+            methods.append(part);
+            methods.append(INDENT).append("}\n");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String imported : IMPORTS) {
+            sb.append("import ").append(imported).append(";\n");
+        }
+        sb.append("\n");
+        sb.append("/**\n * Compiled from ").append(prg.getName().replace("*/", "* /")).append("\n */\n");
+        sb.append("public class ").append(className).append(" extends CompiledProgram {\n\n");
+        sb.append(INDENT).append("private final Value[] values = new Value[").append(valueElements.size()).append("];\n");
+        sb.append(INDENT).append("private final Statement[] stmts = new Statement[").append(stmtCount).append("];\n");
+        sb.append(fields).append("\n");
+        sb.append(INDENT).append("public ").append(className).append("() {\n");
+        sb.append(INDENT).append(INDENT).append("super(").append(quote(prg.getName())).append(");\n");
+        int initCount = (initializers.size() + FIELDS_PER_METHOD - 1) / FIELDS_PER_METHOD;
+        for (int i = 0; i < initCount; i++) {
+            sb.append(INDENT).append(INDENT).append("init").append(i).append("();\n");
+        }
+        sb.append(INDENT).append("}\n");
+        for (int i = 0; i < initCount; i++) {
+            sb.append("\n");
+            sb.append(INDENT).append("private void init").append(i).append("() {\n");
+            for (String init : initializers.subList(i * FIELDS_PER_METHOD, Math.min((i + 1) * FIELDS_PER_METHOD, initializers.size()))) {
+                sb.append(INDENT).append(INDENT).append(init).append("\n");
+            }
+            sb.append(INDENT).append("}\n");
+        }
+        sb.append("\n");
+        sb.append(INDENT).append("@Override\n");
+        sb.append(INDENT).append("public void execute(BlockContext ctx) {\n");
+        sb.append(body);
+        sb.append(INDENT).append("}\n");
+        sb.append(methods);
+        sb.append("\n");
+        sb.append(INDENT).append("public static void main(String[] args) {\n");
+        sb.append(INDENT).append(INDENT).append("CompiledProgram.main(").append(className).append("::new, args);\n");
+        sb.append(INDENT).append("}\n\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * The constant values and the statements created for each source line are
+     * kept in arrays, separate fields would exhaust the constant pool of a
+     * large program
+     */
+    private String addElement(String array, int index, String initializer) {
+        String element = array + "[" + index + "]";
+        initializers.add(element + " = " + initializer + ";");
+        return element;
+    }
+
+    private String addField(String type, String prefix, String initializer) {
+        String fieldName = prefix + (fieldCount++);
+        declareField(type, fieldName, initializer);
+        return fieldName;
+    }
+
+    private void declareField(String type, String fieldName, String initializer) {
+        // initialized in the init methods, in the order of declaration
+        fields.append(INDENT).append("private ").append(type).append(" ").append(fieldName).append(";\n");
+        initializers.add(fieldName + " = " + initializer + ";");
+    }
+
+    private void line(StringBuilder sb, int indent, String code) {
+        for (int i = 0; i < indent; i++) {
+            sb.append(INDENT);
+        }
+        sb.append(code).append("\n");
+    }
+
+    private void generateBlock(Block block, StringBuilder sb, int indent) {
+        for (Statement stmt : block.getStatements()) {
+            generateBlockStatement(stmt, sb, indent);
+        }
+    }
+
+    private void generateBlockStatement(Statement stmt, StringBuilder sb, int indent) {
+        if (stmt instanceof ElseStatement) {
+            // Else blocks are generated by their If statement
+            return;
+        }
+        if (stmt.getLine() != null) {
+            line(sb, indent, "try {");
+            generateStatement(stmt, sb, indent + 1);
+            line(sb, indent, "} catch (RockstarRuntimeException rre) {");
+            // the line is taken from the parsed program, only in case of an error
+            line(sb, indent + 1, "rre.addStacktraceLine(stmt(" + nodeIds.get(stmt) + ").getLine(), ctx);");
+            line(sb, indent + 1, "throw rre;");
+            line(sb, indent, "}");
+        } else {
+            generateStatement(stmt, sb, indent);
+        }
+    }
+
+    private void generateStatement(Statement stmt, StringBuilder sb, int indent) {
+        if (stmt instanceof FunctionBlock) {
+            line(sb, indent, generateFunction((FunctionBlock) stmt) + ".execute(ctx);");
+        } else if (stmt instanceof IfStatement) {
+            IfStatement ifStmt = (IfStatement) stmt;
+            line(sb, indent, "if (" + generateExpression(ifStmt.getCondition()) + ".getBool()) {");
+            generateBlock(ifStmt, sb, indent + 1);
+            if (ifStmt.getElseStatement() != null) {
+                line(sb, indent, "} else {");
+                generateBlock(ifStmt.getElseStatement(), sb, indent + 1);
+            }
+            line(sb, indent, "}");
+        } else if (stmt instanceof WhileStatement) {
+            generateWhile((WhileStatement) stmt, sb, indent);
+        } else if (stmt instanceof AssignmentStatement) {
+            AssignmentStatement assignment = (AssignmentStatement) stmt;
+            Expression variableExpr = assignment.getVariableExpression();
+            String value = generateExpression(assignment.getValueExpression());
+            String vref = (variableExpr instanceof VariableReference) ? getVariableField((VariableReference) variableExpr) : null;
+            if (vref != null) {
+                line(sb, indent, "ctx.setVariable(" + vref + ", " + value + ");");
+            } else {
+                line(sb, indent, "AssignmentStatement.assign(expr(" + nodeIds.get(variableExpr) + "), " + value + ", ctx);");
+            }
+        } else if (stmt instanceof OutputStatement) {
+            line(sb, indent, "output(ctx, " + generateExpression(((OutputStatement) stmt).getExpression()) + ");");
+        } else if (stmt instanceof ReturnStatement && ((ReturnStatement) stmt).isTailCall() && currentFunction != null) {
+            ReturnStatement ret = (ReturnStatement) stmt;
+            line(sb, indent, "tailCall(ctx, (FunctionCall) expr(" + nodeIds.get(ret.getTailCall()) + "), " + currentFunction + ");");
+            line(sb, indent, "giveBack(" + generateExpression(ret.getExpression()) + ");");
+        } else if (stmt instanceof ReturnStatement) {
+            line(sb, indent, "giveBack(" + generateExpression(((ReturnStatement) stmt).getExpression()) + ");");
+        } else if (stmt instanceof ExpressionStatement) {
+            line(sb, indent, "discard(" + generateExpression(((ExpressionStatement) stmt).getExpression()) + ");");
+        } else if (stmt instanceof BreakStatement) {
+            line(sb, indent, "breakLoop();");
+        } else if (stmt instanceof ContinueStatement) {
+            line(sb, indent, "continueLoop();");
+        } else if (stmt instanceof IncrementStatement && getVariableField(((IncrementStatement) stmt).getVariable()) != null) {
+            IncrementStatement increment = (IncrementStatement) stmt;
+            String vref = getVariableField(increment.getVariable());
+            line(sb, indent, addElement("stmts", stmtCount++, "new IncrementStatement(" + vref + ", " + increment.getCount() + ")") + ".execute(ctx);");
+        } else if (stmt instanceof DecrementStatement && getVariableField(((DecrementStatement) stmt).getVariable()) != null) {
+            DecrementStatement decrement = (DecrementStatement) stmt;
+            String vref = getVariableField(decrement.getVariable());
+            line(sb, indent, addElement("stmts", stmtCount++, "new DecrementStatement(" + vref + ", " + decrement.getCount() + ")") + ".execute(ctx);");
+        } else {
+            // interpreted statement
+            line(sb, indent, "stmt(" + nodeIds.get(stmt) + ").execute(ctx);");
+        }
+    }
+
+    private String generateFunction(FunctionBlock function) {
+        String methodName = "body" + (functionCount++);
+        StringBuilder params = new StringBuilder();
+        for (VariableReference paramRef : function.getParameterRefs()) {
+            params.append(", ").append(getVariableField(paramRef));
+        }
+        // the body refers to the field of the function in its tail calls
+        String functionField = "function" + (fieldCount++);
+        String outerFunction = currentFunction;
+        currentFunction = functionField;
+        StringBuilder body = new StringBuilder();
+        generateBlock(function, body, 2);
+        currentFunction = outerFunction;
+        methods.append("\n");
+        methods.append(INDENT).append("// ").append(function.getName().replace('\n', ' ')).append("\n");
+        methods.append(INDENT).append("private void ").append(methodName).append("(BlockContext ctx) {\n");
+        methods.append(body);
+        methods.append(INDENT).append("}\n");
+        declareField("FunctionBlock", functionField,
+                "function(" + quote(function.getName()) + ", this::" + methodName + params + ")");
+        return functionField;
+    }
+
+    private void generateWhile(WhileStatement stmt, StringBuilder sb, int indent) {
+        int loopId = loopCount++;
+        String loopCountVar = "loopCount" + loopId;
+        String conditionVar = "condition" + loopId;
+        String canContinueVar = "canContinue" + loopId;
+        String condition = generateExpression(stmt.getCondition()) + ".asBoolean().getBool()";
+        if (stmt.isNegateCondition()) {
+            condition = "!" + condition;
+        }
+        if (stmt.hasHoistedExpressions()) {
+            line(sb, indent, "enterLoop(" + nodeIds.get(stmt) + ");");
+        }
+        line(sb, indent, "int " + loopCountVar + " = 0;");
+        line(sb, indent, "boolean " + conditionVar + " = " + condition + ";");
+        line(sb, indent, "while (" + conditionVar + " && isLoopAllowed(ctx, " + loopCountVar + ")) {");
+        line(sb, indent + 1, "boolean " + canContinueVar + " = true;");
+        line(sb, indent + 1, "try {");
+        generateBlock(stmt, sb, indent + 2);
+        line(sb, indent + 1, "} catch (RockstarContinueException rce) {");
+        line(sb, indent + 2, "// continue exits the block, but not the loop");
+        line(sb, indent + 1, "} catch (RockstarBreakException rbe) {");
+        line(sb, indent + 2, "// break exits the loop, too");
+        line(sb, indent + 2, canContinueVar + " = false;");
+        line(sb, indent + 1, "}");
+        line(sb, indent + 1, loopCountVar + "++;");
+        line(sb, indent + 1, conditionVar + " = " + condition + " && " + canContinueVar + ";");
+        line(sb, indent, "}");
+        line(sb, indent, "checkLoopCount(ctx, " + loopCountVar + ");");
+    }
+
+    /**
+     * The field holding a variable reference, or null if the reference cannot
+     * be recreated by name
+     */
+    private String getVariableField(VariableReference vref) {
+        String name = vref.getName();
+        if (VariableReference.getInstance(name).getClass() != vref.getClass()) {
+            return null;
+        }
+        return variableFields.computeIfAbsent(name,
+                n -> addField("VariableReference", "var", "VariableReference.getInstance(" + quote(n) + ")"));
+    }
+
+    /**
+     * The Java expression creating a constant value, or null if not possible
+     */
+    private String getConstant(Value value) {
+        switch (value.getType()) {
+            case MYSTERIOUS:
+                return "Value.MYSTERIOUS";
+            case NULL:
+                return "Value.NULL";
+            case BOOLEAN:
+                return value.getBool() ? "Value.BOOLEAN_TRUE" : "Value.BOOLEAN_FALSE";
+            case STRING:
+                return addValue("Value.getValue(" + quote(value.getString()) + ")");
+            case NUMBER:
+                RockNumber n = value.getNumeric();
+                String s = n.toString();
+                RockNumber parsed = RockNumber.parse(s);
+                if (parsed != null && parsed.compareTo(n) == 0) {
+                    return addValue("Value.getValue(RockNumber.parse(" + quote(s) + "))");
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * The constant values are kept in an array, an equal constant is created
+     * once
+     */
+    private String addValue(String initializer) {
+        return valueElements.computeIfAbsent(initializer, init -> addElement("values", valueElements.size(), init));
+    }
+
+    private String interpreted(Expression expr) {
+        return "expr(" + nodeIds.get(expr) + ").evaluate(ctx)";
+    }
+
+    private String generateExpression(Expression expr) {
+        if (expr instanceof ConstantExpression) {
+            String constant = getConstant(((ConstantExpression) expr).getValue());
+            return (constant != null) ? constant : interpreted(expr);
+        }
+        if (expr instanceof VariableReference) {
+            String vref = getVariableField((VariableReference) expr);
+            if (vref == null) {
+                return interpreted(expr);
+            }
+            return (expr.getClass() == VariableReference.class)
+                    ? "getVariable(ctx, " + vref + ")"
+                    : vref + ".evaluate(ctx)";
+        }
+        if (expr instanceof FunctionCall) {
+            return generateFunctionCall((FunctionCall) expr);
+        }
+        if (!(expr instanceof CompoundExpression)) {
+            return interpreted(expr);
+        }
+        List<Expression> params = ((CompoundExpression) expr).getParameters();
+        if (expr instanceof PlusExpression || expr instanceof MinusExpression
+                || expr instanceof MultiplyExpression || expr instanceof DivideExpression) {
+            if (params.get(1) instanceof ListExpression) {
+                return interpreted(expr);
+            }
+            String op = (expr instanceof PlusExpression) ? "plus"
+                    : (expr instanceof MinusExpression) ? "minus"
+                    : (expr instanceof MultiplyExpression) ? "multiply"
+                    : "divide";
+            return generateExpression(params.get(0)) + "." + op + "(" + generateExpression(params.get(1)) + ")";
+        }
+        if (expr instanceof ComparisonExpression) {
+            String op;
+            switch (((ComparisonExpression) expr).getType()) {
+                case EQUALS:
+                    op = "isEquals";
+                    break;
+                case NOT_EQUALS:
+                    op = "isNotEquals";
+                    break;
+                case LESS_THAN:
+                    op = "isLessThan";
+                    break;
+                case LESS_OR_EQUALS:
+                    op = "isLessOrEquals";
+                    break;
+                case GREATER_THAN:
+                    op = "isGreaterThan";
+                    break;
+                case GREATER_OR_EQUALS:
+                    op = "isGreaterOrEquals";
+                    break;
+                default:
+                    return interpreted(expr);
+            }
+            return generateExpression(params.get(0)) + "." + op + "(" + generateExpression(params.get(1)) + ")";
+        }
+        if (expr instanceof LogicalExpression) {
+            String op = ((LogicalExpression) expr).getType().name().toLowerCase();
+            // short circuit: the second operand is evaluated by the helper if needed
+            return op + "(" + generateExpression(params.get(0)) + ", () -> " + generateExpression(params.get(1)) + ")";
+        }
+        if (expr instanceof NotExpression) {
+            return generateExpression(params.get(0)) + ".negate()";
+        }
+        if (expr instanceof UnaryMinusExpression) {
+            return "Value.NULL.minus(" + generateExpression(params.get(0)) + ")";
+        }
+        return interpreted(expr);
+    }
+
+    private String generateFunctionCall(FunctionCall call) {
+        String object = "null";
+        if (call.getObject() != null) {
+            object = getVariableField(call.getObject());
+            if (object == null) {
+                return interpreted(call);
+            }
+        }
+        StringBuilder params = new StringBuilder();
+        for (Expression param : call.getParameters()) {
+            String paramExpr = null;
+            if (param instanceof ConstantExpression) {
+                String constant = getConstant(((ConstantExpression) param).getValue());
+                paramExpr = (constant == null) ? null : "new ConstantExpression(" + constant + ")";
+            } else if (param instanceof VariableReference) {
+                paramExpr = getVariableField((VariableReference) param);
+            }
+            if (paramExpr == null) {
+                return interpreted(call);
+            }
+            params.append(params.length() == 0 ? "" : ", ").append(paramExpr);
+        }
+        String callField = addField("FunctionCall", "call",
+                "new FunctionCall(" + object + ", " + quote(call.getFunctionName()) + ", Arrays.<Expression>asList(" + params + "))");
+        return callField + ".evaluate(ctx)";
+    }
+
+    /**
+     * Java string literal of a string
+     */
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 32 || c > 126) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append("\"").toString();
+    }
+
+}
@@ -0,0 +1,275 @@
+package rockstar.engine;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import rockstar.expression.BuiltinFunction;
+import rockstar.expression.CompoundExpression;
+import rockstar.expression.ConstantExpression;
+import rockstar.expression.Expression;
+import rockstar.expression.FunctionCall;
+import rockstar.expression.HoistedExpression;
+import rockstar.expression.MutationExpression;
+import rockstar.expression.QualifierExpression;
+import rockstar.expression.RollExpression;
+import rockstar.expression.VariableReference;
+import rockstar.statement.AssignmentStatement;
+import rockstar.statement.Block;
+import rockstar.statement.BreakStatement;
+import rockstar.statement.CastStatement;
+import rockstar.statement.ClassBlock;
+import rockstar.statement.ContinueStatement;
+import rockstar.statement.ElseStatement;
+import rockstar.statement.FunctionBlock;
+import rockstar.statement.IfStatement;
+import rockstar.statement.ImportStatement;
+import rockstar.statement.InstantiationStatement;
+import rockstar.statement.IterateStatement;
+import rockstar.statement.JoinStatement;
+import rockstar.statement.OutputStatement;
+import rockstar.statement.ReturnStatement;
+import rockstar.statement.RockStatement;
+import rockstar.statement.RollStatement;
+import rockstar.statement.SplitStatement;
+import rockstar.statement.Statement;
+import rockstar.statement.WhileStatement;
+
+/**
+ * Loop-invariant code motion, run by the optimizer.
+ *
+ * An expression in a loop is invariant if it is calculated by pure operators
+ * from variables that are not assigned anywhere in the loop. It is wrapped
+ * into a HoistedExpression, calculated only once each time the loop is
+ * entered. Loops with function or method calls are not optimized, as the
+ * called function may assign global and member variables.
+ *
+ * Arrays are shared between variables, so an array changed in place through
+ * one variable changes the others, too: array reads are not hoisted from a
+ * loop that changes any array in place.
+ *
+ * @author Gabor
+ */
+public class LoopInvariantMotion {
+
+    // the current loop changes an array in place
+    private boolean arrayWritten;
+
+    /**
+     * Optimizes the loops of the block, including the nested blocks
+     *
+     * @param block
+     */
+    public void optimize(Block block) {
+        for (Statement stmt : block.getStatements()) {
+            if (stmt instanceof WhileStatement || stmt instanceof IterateStatement) {
+                optimizeLoop((Block) stmt);
+            }
+            if (stmt instanceof Block) {
+                // the nested loops may be optimized, even if the outer loop is not
+                optimize((Block) stmt);
+            }
+        }
+    }
+
+    private void optimizeLoop(Block loop) {
+        Set<String> assigned = new HashSet<>();
+        arrayWritten = false;
+        if (!collectAssigned(loop, assigned)) {
+            return;
+        }
+        if (loop instanceof WhileStatement) {
+            hoistStatement(loop, loop, assigned);
+        }
+        hoistBlock(loop, loop, assigned);
+    }
+
+    /**
+     * Collects the names of the variables that may be assigned by the
+     * statement
+     *
+     * @param stmt
+     * @param assigned
+     * @return false if the statement may assign any variable
+     */
+    private boolean collectAssigned(Statement stmt, Set<String> assigned) {
+        if (stmt instanceof FunctionBlock || stmt instanceof ClassBlock
+                || stmt instanceof InstantiationStatement || stmt instanceof ImportStatement) {
+            return false;
+        }
+        if (stmt instanceof RockStatement || stmt instanceof RollStatement
+                || stmt instanceof SplitStatement || stmt instanceof JoinStatement || stmt instanceof CastStatement) {
+            // array operations and mutations change their array in place
+            arrayWritten = true;
+        }
+        boolean readOnly = isReadOnly(stmt);
+        for (Expression expr : stmt.getExpressions()) {
+            boolean isTarget = (stmt instanceof AssignmentStatement)
+                    && (expr == ((AssignmentStatement) stmt).getVariableExpression());
+            if (!collectAssigned(expr, assigned, isTarget || !readOnly)) {
+                return false;
+            }
+        }
+        if (stmt instanceof Block) {
+            for (Statement s : ((Block) stmt).getStatements()) {
+                if (!collectAssigned(s, assigned)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean collectAssigned(Expression expr, Set<String> assigned, boolean isWritten) {
+        if (expr instanceof FunctionCall) {
+            return false;
+        }
+        if (expr instanceof QualifierExpression && !((QualifierExpression) expr).isArrayIndexing()) {
+            // method call on an object
+            return false;
+        }
+        if (isWritten && expr instanceof QualifierExpression) {
+            // indexed assignment
+            arrayWritten = true;
+        }
+        if (expr instanceof VariableReference) {
+            if (isWritten) {
+                if (expr.getClass() != VariableReference.class) {
+                    // "it" and "self" may refer to any variable
+                    return false;
+                }
+                assigned.add(((VariableReference) expr).getName());
+            }
+            return true;
+        }
+        if (expr instanceof CompoundExpression) {
+            // roll and mutations modify their operands
+            boolean paramsWritten = isWritten || (expr instanceof RollExpression) || (expr instanceof MutationExpression);
+            if (expr instanceof RollExpression || expr instanceof MutationExpression) {
+                arrayWritten = true;
+            }
+            for (Expression param : ((CompoundExpression) expr).getParameters()) {
+                if (!collectAssigned(param, assigned, paramsWritten)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Statements that only read the variables in their expressions
+     */
+    private boolean isReadOnly(Statement stmt) {
+        return stmt instanceof AssignmentStatement
+                || stmt instanceof OutputStatement
+                || stmt instanceof IfStatement
+                || stmt instanceof ElseStatement
+                || stmt instanceof WhileStatement
+                || stmt instanceof ReturnStatement
+                || stmt instanceof BreakStatement
+                || stmt instanceof ContinueStatement;
+    }
+
+    private void hoistBlock(Block block, Block loop, Set<String> assigned) {
+        for (Statement stmt : block.getStatements()) {
+            if (isReadOnly(stmt)) {
+                hoistStatement(stmt, loop, assigned);
+            }
+            if (stmt instanceof Block) {
+                hoistBlock((Block) stmt, loop, assigned);
+            }
+        }
+    }
+
+    private void hoistStatement(Statement stmt, Block loop, Set<String> assigned) {
+        for (Expression expr : stmt.getExpressions()) {
+            boolean isTarget = (stmt instanceof AssignmentStatement)
+                    && (expr == ((AssignmentStatement) stmt).getVariableExpression());
+            if (!isTarget) {
+                Expression hoisted = hoistExpression(expr, loop, assigned);
+                if (hoisted != expr) {
+                    stmt.replaceExpression(expr, hoisted);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wraps the largest invariant subexpressions
+     *
+     * @param expr
+     * @param loop
+     * @param assigned
+     * @return the expression to be used instead of the original one
+     */
+    private Expression hoistExpression(Expression expr, Block loop, Set<String> assigned) {
+        if (!(expr instanceof CompoundExpression) || expr instanceof HoistedExpression) {
+            return expr;
+        }
+        if (isInvariant(expr, assigned) && hasVariable(expr)) {
+            HoistedExpression hoisted = new HoistedExpression((CompoundExpression) expr);
+            loop.addHoistedExpression(hoisted);
+            return hoisted;
+        }
+        List<Expression> params = ((CompoundExpression) expr).getParameters();
+        for (int i = 0; i < params.size(); i++) {
+            Expression param = params.get(i);
+            Expression hoisted = hoistExpression(param, loop, assigned);
+            if (hoisted != param) {
+                params.set(i, hoisted);
+            }
+        }
+        return expr;
+    }
+
+    private boolean isInvariant(Expression expr, Set<String> assigned) {
+        if (expr instanceof ConstantExpression) {
+            return true;
+        }
+        if (expr.getClass() == VariableReference.class) {
+            return !assigned.contains(((VariableReference) expr).getName());
+        }
+        if (isPure(expr)) {
+            for (Expression param : ((CompoundExpression) expr).getParameters()) {
+                if (!isInvariant(param, assigned)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The operators that depend only on their operands, and the array reads
+     * if the loop does not change arrays in place
+     */
+    private boolean isPure(Expression expr) {
+        if (Optimizer.isPureOperator(expr)) {
+            return true;
+        }
+        if (arrayWritten) {
+            return false;
+        }
+        if (expr instanceof BuiltinFunction) {
+            BuiltinFunction.Type type = ((BuiltinFunction) expr).getType();
+            return type == BuiltinFunction.Type.SIZEOF || type == BuiltinFunction.Type.PEEK;
+        }
+        return (expr instanceof QualifierExpression) && ((QualifierExpression) expr).isArrayIndexing();
+    }
+
+    private boolean hasVariable(Expression expr) {
+        if (expr instanceof VariableReference) {
+            return true;
+        }
+        if (expr instanceof CompoundExpression) {
+            for (Expression param : ((CompoundExpression) expr).getParameters()) {
+                if (hasVariable(param)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
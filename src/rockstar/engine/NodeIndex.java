@@ -0,0 +1,45 @@
+package rockstar.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import rockstar.expression.CompoundExpression;
+import rockstar.expression.Expression;
+import rockstar.statement.Block;
+import rockstar.statement.Statement;
+
+/**
+ * Enumerates the statements and expressions of a program in a fixed order, so
+ * that a node can be identified by its index in another parse of the same
+ * source.
+ *
+ * @author Gabor
+ */
+public class NodeIndex {
+
+    private NodeIndex() {
+    }
+
+    public static List<Object> collect(Block block) {
+        List<Object> nodes = new ArrayList<>();
+        collectStatements(block, nodes);
+        return nodes;
+    }
+
+    private static void collectStatements(Block block, List<Object> nodes) {
+        for (Statement stmt : block.getStatements()) {
+            nodes.add(stmt);
+            stmt.getExpressions().forEach(expr -> collectExpression(expr, nodes));
+            if (stmt instanceof Block) {
+                collectStatements((Block) stmt, nodes);
+            }
+        }
+    }
+
+    private static void collectExpression(Expression expr, List<Object> nodes) {
+        nodes.add(expr);
+        if (expr instanceof CompoundExpression) {
+            ((CompoundExpression) expr).getParameters().forEach(param -> collectExpression(param, nodes));
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package rockstar.engine;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import rockstar.expression.ComparisonExpression;
+import rockstar.expression.CompoundExpression;
+import rockstar.expression.ConstantExpression;
+import rockstar.expression.DivideExpression;
+import rockstar.expression.Expression;
+import rockstar.expression.LogicalExpression;
+import rockstar.expression.MinusExpression;
+import rockstar.expression.MultiplyExpression;
+import rockstar.expression.NotExpression;
+import rockstar.expression.PlusExpression;
+import rockstar.expression.UnaryMinusExpression;
+import rockstar.runtime.BlockContext;
+import rockstar.runtime.Environment;
+import rockstar.runtime.FileContext;
+import rockstar.runtime.Value;
+import rockstar.statement.AliasStatement;
+import rockstar.statement.Block;
+import rockstar.statement.Statement;
+
+/**
+ * Optimizer pass between parsing and execution, switched by the --opt option
+ * (0: off, 1: on, the default).
+ *
+ * Subexpressions of the pure operators with constant operands are evaluated
+ * once and replaced by a constant. Equal literals share a single constant
+ * expression, and the statements without runtime effect are dropped. Finally
+ * the loop-invariant expressions are hoisted (see LoopInvariantMotion).
+ *
+ * @author Gabor
+ */
+public class Optimizer {
+
+    public static final String OPTION = "--opt";
+
+    // the operators that depend only on their operands
+    private static final List<Class<? extends CompoundExpression>> PURE_OPERATORS = Arrays.asList(
+            PlusExpression.class, MinusExpression.class, MultiplyExpression.class, DivideExpression.class,
+            UnaryMinusExpression.class, NotExpression.class, ComparisonExpression.class, LogicalExpression.class);
+
+    // constants are evaluated in a separate context, without listener
+    private final BlockContext evalCtx;
+
+    private final Map<List<Object>, ConstantExpression> literals = new HashMap<>();
+
+    public Optimizer(Environment env) {
+        Environment evalEnv = new Environment(new ByteArrayInputStream(new byte[0]), env.getOutput(), env.getError(), Collections.emptyMap());
+        this.evalCtx = new FileContext(evalEnv);
+    }
+
+    /**
+     * Checks the --opt option
+     *
+     * @param env
+     * @return
+     */
+    public static boolean isEnabled(Environment env) {
+        String level = env.getParameter(OPTION);
+        return level == null || !level.equals("0");
+    }
+
+    /**
+     * Checks if the expression is a pure operator, depending only on its
+     * operands
+     *
+     * @param expr
+     * @return
+     */
+    static boolean isPureOperator(Expression expr) {
+        return PURE_OPERATORS.contains(expr.getClass());
+    }
+
+    /**
+     * Optimizes a program or a block
+     *
+     * @param block
+     */
+    public void optimize(Block block) {
+        optimizeBlock(block);
+        new LoopInvariantMotion().optimize(block);
+    }
+
+    /**
+     * Optimizes the statements of a block, including the nested blocks
+     *
+     * @param block
+     */
+    private void optimizeBlock(Block block) {
+        Iterator<Statement> it = block.getStatements().iterator();
+        while (it.hasNext()) {
+            Statement stmt = it.next();
+            if (stmt instanceof AliasStatement) {
+                // aliases are applied by the parser
+                it.remove();
+                continue;
+            }
+            for (Expression expr : stmt.getExpressions()) {
+                Expression optimized = optimizeExpression(expr);
+                if (optimized != expr) {
+                    stmt.replaceExpression(expr, optimized);
+                }
+            }
+            if (stmt instanceof Block) {
+                optimizeBlock((Block) stmt);
+            }
+        }
+    }
+
+    /**
+     * Optimizes an expression tree, the operands of the compound expressions
+     * are replaced in place
+     *
+     * @param expr
+     * @return the expression to be used instead of the original one
+     */
+    private Expression optimizeExpression(Expression expr) {
+        if (expr instanceof ConstantExpression) {
+            return pooled((ConstantExpression) expr);
+        }
+        if (!(expr instanceof CompoundExpression)) {
+            return expr;
+        }
+        List<Expression> params = ((CompoundExpression) expr).getParameters();
+        boolean allConstant = !params.isEmpty();
+        for (int i = 0; i < params.size(); i++) {
+            Expression param = params.get(i);
+            Expression optimized = optimizeExpression(param);
+            if (optimized != param) {
+                params.set(i, optimized);
+            }
+            allConstant &= (optimized instanceof ConstantExpression);
+        }
+        if (allConstant && isPureOperator(expr)) {
+            return fold(expr);
+        }
+        return expr;
+    }
+
+    /**
+     * Evaluates a constant expression. Errors are left to the runtime, and
+     * only scalar results are folded, as arrays are not shared.
+     *
+     * @param expr
+     * @return
+     */
+    private Expression fold(Expression expr) {
+        Value value;
+        try {
+            value = expr.evaluate(evalCtx);
+        } catch (RuntimeException ex) {
+            return expr;
+        }
+        if (literalKey(value) == null) {
+            return expr;
+        }
+        return pooled(new ConstantExpression(value));
+    }
+
+    private ConstantExpression pooled(ConstantExpression constant) {
+        List<Object> key = literalKey(constant.getValue());
+        if (key == null) {
+            return constant;
+        }
+        return literals.computeIfAbsent(key, k -> constant);
+    }
+
+    /**
+     * Key of the equal literals. Numbers are equal only in the same
+     * representation, as the exact and the floating point numbers calculate
+     * differently.
+     *
+     * @param value
+     * @return the key, or null if the value cannot be shared
+     */
+    private static List<Object> literalKey(Value value) {
+        switch (value.getType()) {
+            case STRING:
+                return Arrays.asList(value.getType(), value.getString());
+            case NUMBER:
+                return Arrays.asList(value.getType(), value.getNumeric().getClass(), value.getNumeric());
+            case BOOLEAN:
+                return Arrays.asList(value.getType(), value.getBool());
+            case NULL:
+            case MYSTERIOUS:
+                return Arrays.asList(value.getType());
+            default:
+                return null;
+        }
+    }
+
+}
@@ -5,6 +5,7 @@
  */
 package rockstar.expression;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +20,8 @@ import rockstar.runtime.Value;
  */
 public class BuiltinFunction extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     public enum Type {
         SORT(1, "sorted %s"),
         SIZEOF(1, "length of %s"),
@@ -43,6 +46,10 @@ public class BuiltinFunction extends CompoundExpression {
 
     private final Type type;
 
+    public Type getType() {
+        return type;
+    }
+
     @Override
     public int getPrecedence() {
         return 60;
@@ -87,7 +94,7 @@ public class BuiltinFunction extends CompoundExpression {
 
     private Value sort(Value v) {
         if (v.isArray()) {
-            List<Value> l = v.asListArray();
+            List<Value> l = v.asListView();
             Value[] vals = l.toArray(new Value[l.size()]);
             Arrays.sort(vals);
             return Value.getValue(Arrays.asList(vals));
@@ -97,8 +104,8 @@ public class BuiltinFunction extends CompoundExpression {
 
     private Value sizeof(Value v) {
         if (v.isArray()) {
-            List<Value> l = v.asListArray();
-            Map<Value, Value> m = v.asAssocArray();
+            List<Value> l = v.asListView();
+            Map<Value, Value> m = v.asAssocView();
             return Value.getValue(l.size() + m.size());
         }
         throw new RockstarRuntimeException("Invalid type: length of " + v.getType());
@@ -106,7 +113,7 @@ public class BuiltinFunction extends CompoundExpression {
 
     private Value peek(Value v) {
         if (v.isArray()) {
-            List<Value> l = v.asListArray();
+            List<Value> l = v.asListView();
             return l.isEmpty() ? Value.MYSTERIOUS : l.get(l.size()-1);
         }
         throw new RockstarRuntimeException("Invalid type: last of " + v.getType());
@@ -114,16 +121,19 @@ public class BuiltinFunction extends CompoundExpression {
 
     private Value keys(Value v) {
         if (v.isArray()) {
-            Map<Value, Value> m = v.asAssocArray();
-            return Value.getValue(m.keySet());
+            // in the same order as the iteration
+            return Value.getValue(v.asSortedKeys());
         }
         throw new RockstarRuntimeException("Invalid type: all keys of " + v.getType());
     }
 
     private Value values(Value v) {
         if (v.isArray()) {
-            Map<Value, Value> m = v.asAssocArray();
-            return Value.getValue(m.values());
+            Map<Value, Value> m = v.asAssocView();
+            List<Value> values = new ArrayList<>(m.size());
+            // in the order of the keys
+            v.asSortedKeys().forEach(key -> values.add(m.get(key)));
+            return Value.getValue(values);
         }
         throw new RockstarRuntimeException("Invalid type: all values of " + v.getType());
     }
@@ -14,6 +14,8 @@ import rockstar.runtime.Value;
  */
 public class ComparisonExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     public enum ComparisonType {
         EQUALS("=="),
         NOT_EQUALS("!="),
@@ -36,11 +38,18 @@ public class ComparisonExpression extends CompoundExpression {
 
     private ComparisonType type;
 
+    // observed operand types
+    private final TypeFeedback feedback = new TypeFeedback();
+
     public ComparisonExpression(ComparisonType type) {
         super();
         this.type = type;
     }
 
+    public ComparisonType getType() {
+        return type;
+    }
+
     @Override
     public String getFormat() {
         return "(%s " + type.getSign() + " %s)";
@@ -63,6 +72,12 @@ public class ComparisonExpression extends CompoundExpression {
         Expression expr2 = this.getParameters().get(1);
         Value v1 = expr1.evaluate(ctx);
         Value v2 = expr2.evaluate(ctx);
+        switch (feedback.check(v1, v2)) {
+            case NUMBERS:
+                return ctx.afterExpression(this, compared(v1.compareNumeric(v2)));
+            case STRINGS:
+                return ctx.afterExpression(this, compared(v1.compareString(v2)));
+        }
         switch (type) {
             case EQUALS:
                 return ctx.afterExpression(this, v1.isEquals(v2));
@@ -80,6 +95,29 @@ public class ComparisonExpression extends CompoundExpression {
         return ctx.afterExpression(this, null);
     }
 
+    /**
+     * The result of the comparison from the compared operands
+     *
+     * @param cmp the result of compareTo
+     * @return
+     */
+    private Value compared(int cmp) {
+        switch (type) {
+            case EQUALS:
+                return Value.getValue(cmp == 0);
+            case NOT_EQUALS:
+                return Value.getValue(cmp != 0);
+            case LESS_THAN:
+                return Value.getValue(cmp < 0);
+            case LESS_OR_EQUALS:
+                return Value.getValue(cmp <= 0);
+            case GREATER_THAN:
+                return Value.getValue(cmp > 0);
+            default:
+                return Value.getValue(cmp >= 0);
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) {
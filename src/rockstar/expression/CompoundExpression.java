@@ -16,6 +16,8 @@ import rockstar.runtime.Utils;
  */
 public abstract class CompoundExpression extends Expression {
 
+    private static final long serialVersionUID = 1L;
+
     private final int paramCount;
     private final List<Expression> parameters;
 
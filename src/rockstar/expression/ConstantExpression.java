@@ -15,6 +15,8 @@ import rockstar.runtime.Value;
  */
 public class ConstantExpression extends SimpleExpression {
 
+    private static final long serialVersionUID = 1L;
+
     public static ConstantExpression CONST_MYSTERIOUS = new ConstantExpression(Value.MYSTERIOUS);
     public static ConstantExpression CONST_NULL = new ConstantExpression(Value.NULL);
     public static ConstantExpression CONST_EMPTY_STRING = new ConstantExpression(Value.getValue(""));
@@ -5,6 +5,7 @@
  */
 package rockstar.expression;
 
+import java.io.Serializable;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.Value;
 
@@ -12,8 +13,10 @@ import rockstar.runtime.Value;
  *
  * @author Gabor
  */
-public abstract class Expression {
+public abstract class Expression implements Serializable {
   
+    private static final long serialVersionUID = 1L;
+
     public abstract Value evaluate(BlockContext ctx); 
 
     public abstract String format();
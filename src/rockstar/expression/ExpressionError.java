@@ -19,6 +19,8 @@ import rockstar.runtime.Value;
  */
 public class ExpressionError extends Expression {
 
+    private static final long serialVersionUID = 1L;
+
     private final List<String> tokens;
     private String errorMsg;
     private Line line;
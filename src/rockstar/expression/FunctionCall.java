@@ -1,11 +1,12 @@
 package rockstar.expression;
 
-import java.util.ArrayList;
 import java.util.List;
 import rockstar.runtime.BlockContext;
+import rockstar.runtime.ProgramContext;
 import rockstar.runtime.RockObject;
 import rockstar.runtime.RockstarRuntimeException;
 import rockstar.runtime.Value;
+import rockstar.statement.ClassBlock;
 import rockstar.statement.FunctionBlock;
 
 /**
@@ -14,9 +15,25 @@ import rockstar.statement.FunctionBlock;
  */
 public class FunctionCall extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     private VariableReference object = null;
     private String functionName;
 
+    // inline cache for pure function calls: the function found in the root
+    // context, valid for that root context and function epoch
+    private transient ProgramContext cachedRoot = null;
+    private transient int cachedEpoch;
+    private transient FunctionBlock cachedFunction = null;
+
+    // polymorphic inline cache for method calls, keyed on the receiver class,
+    // allocated on the first cached method
+    private static final int METHOD_CACHE_SIZE = 4;
+    private transient ClassBlock[] cachedClasses;
+    private transient int[] cachedLevels;
+    private transient FunctionBlock[] cachedMethods;
+    private transient int cachedMethodCount = 0;
+
     public FunctionCall() {
         super();
     }
@@ -27,6 +44,26 @@ public class FunctionCall extends CompoundExpression {
         this.functionName = methodName;
     }
 
+    /**
+     * Creates an already set up function call
+     *
+     * @param object the object reference for method calls, or null
+     * @param functionName
+     * @param parameters constants or variable references
+     */
+    public FunctionCall(VariableReference object, String functionName, List<Expression> parameters) {
+        this(object, functionName);
+        parameters.forEach(this::addParameter);
+    }
+
+    public VariableReference getObject() {
+        return object;
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
     @Override
     public int getPrecedence() {
         return 100;
@@ -134,13 +171,21 @@ public class FunctionCall extends CompoundExpression {
                 if (objValue.isObject()) {
                     // get the object itself
                     RockObject objContext = objValue.getObject();
-                    // find the context that contains the function
-                    callContext = objContext.getContextForFunction(functionName);
-                    if (callContext == null) {
-                        throw new RockstarRuntimeException("Invalid method call " + functionName + " on a " + objValue.getType().name() + " type variable " + object);
+                    int cacheIdx = findCachedMethod(objContext.getClassBlock());
+                    if (cacheIdx >= 0) {
+                        // the method is defined on the same object level for all instances of a class
+                        callContext = getObjectLevel(objContext, cachedLevels[cacheIdx]);
+                        funcBlock = cachedMethods[cacheIdx];
+                    } else {
+                        // find the context that contains the function
+                        callContext = objContext.getContextForFunction(functionName);
+                        if (callContext == null) {
+                            throw new RockstarRuntimeException("Invalid method call " + functionName + " on a " + objValue.getType().name() + " type variable " + object);
+                        }
+                        // get the method from the object
+                        funcBlock = callContext.retrieveLocalFunction(functionName);
+                        cacheMethod(objContext, callContext, funcBlock);
                     }
-                    // get the method from the object
-                    funcBlock = callContext.retrieveLocalFunction(functionName);
                 } else {
                     throw new RockstarRuntimeException("Invalid method call " + functionName + " on a " + objValue.getType().name() + " type variable " + object);
                 }
@@ -166,6 +211,12 @@ public class FunctionCall extends CompoundExpression {
                 } else {
                     throw new RockstarRuntimeException("parent constructor reference in non-inherited class");
                 }
+            } else if (!ctx.hasLocalFunctions()) {
+                // pure function call, the function can only be in the root context
+                funcBlock = retrievePureFunction(ctx);
+                if (funcBlock == null) {
+                    throw new RockstarRuntimeException("Undefined function: " + functionName);
+                }
             } else {
                 // pure function call or unqualified call in an object context?
                 BlockContext funcCtx = ctx.getContextForFunction(functionName);
@@ -189,10 +240,14 @@ public class FunctionCall extends CompoundExpression {
         Value retValue;
         if (funcBlock != null) {
             List<Expression> params = getParameters();
-            List<Value> values = new ArrayList<>(params.size());
-            params.forEach((expr) -> values.add(expr.evaluate(ctx).asParameter()));
+            int paramCount = params.size();
+            BlockContext funcCtx = funcBlock.enter(callContext, paramCount);
+            // parameters are evaluated in the caller context, directly into the function context
+            for (int i = 0; i < paramCount; i++) {
+                funcBlock.setParameter(funcCtx, i, params.get(i).evaluate(ctx).asParameter());
+            }
             // call the functon
-            retValue = funcBlock.call(callContext, values);
+            retValue = funcBlock.invoke(funcCtx);
         } else {
             if (object == null) {
                 throw new RockstarRuntimeException("Undefined function: " + functionName);
@@ -203,4 +258,104 @@ public class FunctionCall extends CompoundExpression {
         return ctx.afterExpression(this, retValue == null ? Value.NULL : retValue);
     }
 
+    /**
+     * Pure function call, the function is retrieved from the root context
+     * through the inline cache
+     *
+     * @param ctx
+     * @return the function, or null if not defined
+     */
+    private FunctionBlock retrievePureFunction(BlockContext ctx) {
+        ProgramContext rootCtx = ctx.getRootCtx();
+        if (cachedRoot != rootCtx || cachedEpoch != rootCtx.getFunctionEpoch()) {
+            cachedFunction = rootCtx.retrieveLocalFunction(functionName);
+            cachedRoot = rootCtx;
+            cachedEpoch = rootCtx.getFunctionEpoch();
+        }
+        return cachedFunction;
+    }
+
+    /**
+     * Prepares a self tail call: if this call resolves to the running
+     * function, the parameters are evaluated and set in its context, so the
+     * function can be restarted instead of a nested call. The callee would
+     * see the variables of the caller context anyway (dynamic scoping).
+     * Only pure function calls in uninstrumented mode are prepared, as the
+     * debugger relies on a separate context for each call.
+     *
+     * @param ctx the context of the running function
+     * @param function the running function
+     * @return true if the function can be restarted, false if the call must
+     * be evaluated
+     */
+    public boolean setupTailCall(BlockContext ctx, FunctionBlock function) {
+        if (object != null || ctx.isInstrumented() || ctx.hasLocalFunctions()
+                || retrievePureFunction(ctx) != function) {
+            return false;
+        }
+        List<Expression> params = getParameters();
+        int paramCount = params.size();
+        if (paramCount != function.getParameterRefs().size()) {
+            // the error is reported by the nested call
+            return false;
+        }
+        // all parameters are evaluated before the first one is overwritten
+        Value[] values = new Value[paramCount];
+        for (int i = 0; i < paramCount; i++) {
+            values[i] = params.get(i).evaluate(ctx).asParameter();
+        }
+        for (int i = 0; i < paramCount; i++) {
+            function.setParameter(ctx, i, values[i]);
+        }
+        return true;
+    }
+
+    private int findCachedMethod(ClassBlock classBlock) {
+        for (int i = 0; i < cachedMethodCount; i++) {
+            if (cachedClasses[i] == classBlock) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Caches the method found on an object level. Methods found outside of
+     * the object (in the root context) are not cached.
+     *
+     * @param objContext the receiver object
+     * @param callContext the object level containing the method
+     * @param funcBlock the method
+     */
+    private void cacheMethod(RockObject objContext, BlockContext callContext, FunctionBlock funcBlock) {
+        if (funcBlock == null || cachedMethodCount >= METHOD_CACHE_SIZE) {
+            return;
+        }
+        int level = 0;
+        RockObject obj = objContext;
+        while (obj != null && obj != callContext) {
+            obj = obj.getSuperObject();
+            level++;
+        }
+        if (obj != null) {
+            if (cachedClasses == null) {
+                cachedClasses = new ClassBlock[METHOD_CACHE_SIZE];
+                cachedLevels = new int[METHOD_CACHE_SIZE];
+                cachedMethods = new FunctionBlock[METHOD_CACHE_SIZE];
+            }
+            cachedClasses[cachedMethodCount] = objContext.getClassBlock();
+            cachedLevels[cachedMethodCount] = level;
+            cachedMethods[cachedMethodCount] = funcBlock;
+            cachedMethodCount++;
+        }
+    }
+
+    private RockObject getObjectLevel(RockObject objContext, int level) {
+        RockObject obj = objContext;
+        for (int i = 0; i < level; i++) {
+            obj = obj.getSuperObject();
+        }
+        return obj;
+    }
+
 }
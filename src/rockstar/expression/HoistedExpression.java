@@ -0,0 +1,58 @@
+package rockstar.expression;
+
+import rockstar.runtime.BlockContext;
+import rockstar.runtime.Value;
+
+/**
+ * A loop-invariant expression, found by the optimizer. It is calculated when
+ * it is first evaluated after the loop is entered, then the value is reused
+ * until the loop is entered again. Array values are not reused, as an array
+ * may be modified in place.
+ *
+ * @author Gabor
+ */
+public class HoistedExpression extends CompoundExpression {
+
+    private static final long serialVersionUID = 1L;
+
+    private Value value = null;
+
+    public HoistedExpression(CompoundExpression expr) {
+        super(expr);
+    }
+
+    /**
+     * The loop is entered: the expression must be calculated again
+     */
+    public void reset() {
+        value = null;
+    }
+
+    @Override
+    public int getPrecedence() {
+        return ((CompoundExpression) getParameters().get(0)).getPrecedence();
+    }
+
+    @Override
+    public int getParameterCount() {
+        return 1;
+    }
+
+    @Override
+    public String getFormat() {
+        return "%s";
+    }
+
+    @Override
+    public Value evaluate(BlockContext ctx) {
+        Value v = value;
+        if (v == null) {
+            v = getParameters().get(0).evaluate(ctx);
+            if (!v.isArray()) {
+                value = v;
+            }
+        }
+        return v;
+    }
+
+}
@@ -16,6 +16,8 @@ import rockstar.runtime.Value;
  */
 public class InstanceCheckExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     public VariableReference getObjectRef() {
         return (VariableReference) this.getParameters().get(0);
     }
@@ -15,6 +15,8 @@ import rockstar.runtime.Value;
  */
 public class IntoExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     @Override
     public int getPrecedence() {
         return 550;
@@ -14,6 +14,8 @@ import rockstar.runtime.Value;
  */
 public class LastVariableReference extends VariableReference {
 
+    private static final long serialVersionUID = 1L;
+
     protected LastVariableReference(String name) {
         super(name);
     }
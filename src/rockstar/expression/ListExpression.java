@@ -15,6 +15,8 @@ import rockstar.runtime.Value;
  */
 public class ListExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     private boolean hasVariableRef = false;
     private boolean hasConstant = false;
     private boolean hasCompound = false;
@@ -14,6 +14,8 @@ import rockstar.runtime.Value;
  */
 public class LogicalExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     public enum LogicalType {
         AND,
         OR,
@@ -14,6 +14,8 @@ import rockstar.runtime.Value;
  */
 public class MultiplyExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     @Override
     public String getFormat() {
         return "(%s * %s)";
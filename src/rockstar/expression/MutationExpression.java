@@ -17,6 +17,8 @@ import rockstar.runtime.Value;
  */
 public class MutationExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     private final Expression baseExpr;
     private final Expression withExpr;
     private final VariableReference intoExpr;
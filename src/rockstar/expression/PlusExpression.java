@@ -14,6 +14,11 @@ import rockstar.runtime.Value;
  */
 public class PlusExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
+    // observed operand types
+    private final TypeFeedback feedback = new TypeFeedback();
+
     @Override
     public String getFormat() {
         return "(%s + %s)";
@@ -39,13 +44,24 @@ public class PlusExpression extends CompoundExpression {
             ListExpression list = (ListExpression) expr2;
             for (Expression e : list.getParameters()) {
                 Value v2 = e.evaluate(ctx);
-                 v = ctx.afterExpression(this, v.plus(v2));
+                 v = ctx.afterExpression(this, plus(v, v2));
             }
         } else {
             Value v2 = expr2.evaluate(ctx);
-            v = ctx.afterExpression(this, v.plus(v2));
+            v = ctx.afterExpression(this, plus(v, v2));
         }    
         return v;
     }
 
+    private Value plus(Value v1, Value v2) {
+        switch (feedback.check(v1, v2)) {
+            case NUMBERS:
+                return v1.plusNumeric(v2);
+            case STRINGS:
+                return v1.plusString(v2);
+            default:
+                return v1.plus(v2);
+        }
+    }
+
 }
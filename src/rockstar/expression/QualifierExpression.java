@@ -17,6 +17,8 @@ import rockstar.runtime.RockstarRuntimeException;
  */
 public class QualifierExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     private final String token;
     private final boolean isArrayIndexing;
 
@@ -87,8 +89,7 @@ public class QualifierExpression extends CompoundExpression {
                         String str = baseValue.getString();
                         Value referencedValue = Value.MYSTERIOUS;
                         if ((index >= 0) && (index < str.length())) {
-                            String substr = str.substring(index, index+1);
-                            referencedValue = Value.getValue(substr);
+                            referencedValue = Value.getCharValue(str.charAt(index));
                         }
                         return ctx.afterExpression(this, referencedValue);
                     } else {
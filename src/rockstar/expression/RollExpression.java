@@ -5,7 +5,6 @@
  */
 package rockstar.expression;
 
-import java.util.List;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.RockstarRuntimeException;
 import rockstar.runtime.Value;
@@ -16,6 +15,8 @@ import rockstar.runtime.Value;
  */
 public class RollExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     @Override
     public String getFormat() {
         return "roll(%s)";
@@ -38,14 +39,7 @@ public class RollExpression extends CompoundExpression {
         if (expr1 instanceof VariableReference) {
             Value arrayValue = expr1.evaluate(ctx);
             if (arrayValue.isArray()) {
-                Value value;
-                List<Value> list = arrayValue.asListArray();
-                if (! list.isEmpty()) {
-                    value = list.remove(0);
-                } else {
-                    value = Value.MYSTERIOUS;
-                }
-                return value;
+                return arrayValue.roll();
             } else {
                 throw new RockstarRuntimeException("Invalid array reference: " + expr1);
             }
@@ -16,6 +16,8 @@ import rockstar.runtime.Value;
  */
 public class SelfVariableReference extends VariableReference {
     
+    private static final long serialVersionUID = 1L;
+
     protected SelfVariableReference(String name) {
         super(name);
     }
@@ -11,4 +11,6 @@ package rockstar.expression;
  */
 public abstract class SimpleExpression extends Expression {
     
+    private static final long serialVersionUID = 1L;
+
 }
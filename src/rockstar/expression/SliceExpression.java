@@ -16,6 +16,8 @@ import java.util.List;
  */
 public class SliceExpression extends CompoundExpression {
 
+    private static final long serialVersionUID = 1L;
+
     public enum Type {
         SLICE_FROM,
         SLICE_TO,
@@ -78,7 +80,7 @@ public class SliceExpression extends CompoundExpression {
         }
         Value retValue = Value.MYSTERIOUS;
         if (baseVal.isArray()) {
-            List<Value> baseList = baseVal.asListArray();
+            List<Value> baseList = baseVal.asListView();
             List<Value> newList = baseList.subList(fromVal == null ? 0 : fromVal, toVal == null ? baseList.size() : toVal + 1);
             retValue = Value.getValue(newList);
         } else {
@@ -0,0 +1,64 @@
+package rockstar.expression;
+
+import java.io.Serializable;
+import rockstar.runtime.Value;
+
+/**
+ * Operand type feedback of a binary operator node. The node is specialized on
+ * its first evaluation to the operand types it has seen (two numbers or two
+ * strings), and uses the fast path of that type while the guard holds. After
+ * the first guard failure the node falls back to the generic path for good.
+ *
+ * @author Gabor
+ */
+class TypeFeedback implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    enum State {
+        UNINITIALIZED,
+        NUMBERS,
+        STRINGS,
+        GENERIC
+    }
+
+    private State state = State.UNINITIALIZED;
+
+    /**
+     * Checks the guard of the current specialization, rewriting the state if
+     * needed
+     *
+     * @param v1
+     * @param v2
+     * @return the path to be used for the operands
+     */
+    State check(Value v1, Value v2) {
+        switch (state) {
+            case NUMBERS:
+                if (v1.isNumeric() && v2.isNumeric()) {
+                    return State.NUMBERS;
+                }
+                break;
+            case STRINGS:
+                if (v1.isString() && v2.isString()) {
+                    return State.STRINGS;
+                }
+                break;
+            case UNINITIALIZED:
+                if (v1.isNumeric() && v2.isNumeric()) {
+                    state = State.NUMBERS;
+                } else if (v1.isString() && v2.isString()) {
+                    state = State.STRINGS;
+                } else {
+                    state = State.GENERIC;
+                }
+                return state;
+            default:
+                return State.GENERIC;
+        }
+        // guard failed: generalize
+        state = State.GENERIC;
+        return state;
+    }
+
+}
@@ -5,9 +5,9 @@
  */
 package rockstar.expression;
 
-import java.util.Arrays;
-import java.util.List;
+import rockstar.parser.Keyword;
 import rockstar.runtime.BlockContext;
+import rockstar.runtime.FrameLayout;
 import rockstar.runtime.Value;
 
 /**
@@ -16,32 +16,20 @@ import rockstar.runtime.Value;
  */
 public class VariableReference extends SimpleExpression {
 
+    private static final long serialVersionUID = 1L;
+
     public static boolean isSelfReference(String ref) {
-        return "self".equals(ref)
-                || "myself".equals(ref)
-                || "yourself".equals(ref)
-                || "himself".equals(ref)
-                || "herself".equals(ref)
-                || "itself".equals(ref)
-                || "ourselves".equals(ref)
-                || "yourselves".equals(ref)
-                || "themselves".equals(ref);
+        return Keyword.isInGroup(ref, Keyword.Group.SELF);
     }
 
     public static boolean isParentReference(String ref) {
-        return "parent".equals(ref)
-                || "father".equals(ref)
-                || "mother".equals(ref)
-                || "papa".equals(ref)
-                || "mama".equals(ref);
+        return Keyword.isInGroup(ref, Keyword.Group.PARENT);
     }
 
-    private static final List<String> LAST_NAMED_VARIABLE_REFERENCE_KEYWORDS = Arrays.asList(new String[]{
-        "it", "he", "she", "him", "her", "they", "them", "ze", "hir", "zie", "zir", "xe", "xem", "ve", "ver",
-        "It", "He", "She", "Him", "Her", "They", "Them", "Ze", "Hir", "Zie", "Zir", "Xe", "Xem", "Ve", "Ver"});
-
     public static boolean isLastVariableReference(String ref) {
-        return (LAST_NAMED_VARIABLE_REFERENCE_KEYWORDS.contains(ref));
+        // lower case or capitalized pronouns
+        Keyword keyword = Keyword.ofSentenceCase(ref);
+        return keyword != null && keyword.getGroup() == Keyword.Group.PRONOUN;
     }
 
     public static VariableReference getInstance(String name) {
@@ -57,6 +45,12 @@ public class VariableReference extends SimpleExpression {
     private final String name;
 //    private boolean isFunctionName = false;
 
+    // frame slot, if the variable is resolved as frame-local
+    private FrameLayout frameLayout = null;
+    private int slot = -1;
+    // the last frame layout known not to hold the variable
+    private transient FrameLayout outsideLayout = null;
+
     protected VariableReference(String name) {
         this.name = name;
     }
@@ -65,6 +59,45 @@ public class VariableReference extends SimpleExpression {
         return name;
     }
 
+    /**
+     * Binds the reference to a frame slot of a function
+     *
+     * @param frameLayout
+     * @param slot
+     */
+    public void resolve(FrameLayout frameLayout, int slot) {
+        this.frameLayout = frameLayout;
+        this.slot = slot;
+    }
+
+    public FrameLayout getFrameLayout() {
+        return frameLayout;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Checks if the variable is known not to be frame-local in a layout
+     *
+     * @param layout
+     * @return true if a previous lookup did not find the variable in the layout
+     */
+    public boolean isOutsideOf(FrameLayout layout) {
+        return outsideLayout == layout;
+    }
+
+    /**
+     * Records that the variable is not frame-local in a layout, so parent
+     * walks with the same layout can skip the slot lookup
+     *
+     * @param layout
+     */
+    public void setOutsideOf(FrameLayout layout) {
+        this.outsideLayout = layout;
+    }
+
     @Override
     public String toString() {
         return name;
@@ -13,4 +13,6 @@ package rockstar.expression;
  */
 public class WithExpression extends PlusExpression {
     
+    private static final long serialVersionUID = 1L;
+
 }
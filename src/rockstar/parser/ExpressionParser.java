@@ -6,7 +6,6 @@
 package rockstar.parser;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Stack;
 import rockstar.expression.BuiltinFunction;
@@ -95,13 +94,13 @@ public class ExpressionParser {
         return next;
     }
 
-    public static final List<String> MYSTERIOUS_KEYWORDS = Arrays.asList(new String[]{"mysterious"});
-    public static final List<String> EMPTY_STRING_KEYWORDS = Arrays.asList(new String[]{"empty", "silent", "silence"});
-    public static final List<String> NULL_KEYWORDS = Arrays.asList(new String[]{"null", "nothing", "nowhere", "nobody", "gone"});
-    public static final List<String> EMPTY_ARRAY_KEYWORDS = Arrays.asList(new String[]{"void", "hollow"});
-    public static final List<String> BOOLEAN_TRUE_KEYWORDS = Arrays.asList(new String[]{"true", "right", "yes", "ok"});
-    public static final List<String> BOOLEAN_FALSE_KEYWORDS = Arrays.asList(new String[]{"false", "wrong", "no", "lies"});
-    public static final List<String> RESERVED_KEYWORDS = Arrays.asList(new String[]{"definitely", "maybe"});
+    public static final List<String> MYSTERIOUS_KEYWORDS = Keyword.spellingsOf(Keyword.Group.MYSTERIOUS);
+    public static final List<String> EMPTY_STRING_KEYWORDS = Keyword.spellingsOf(Keyword.Group.EMPTY_STRING);
+    public static final List<String> NULL_KEYWORDS = Keyword.spellingsOf(Keyword.Group.NULL);
+    public static final List<String> EMPTY_ARRAY_KEYWORDS = Keyword.spellingsOf(Keyword.Group.EMPTY_ARRAY);
+    public static final List<String> BOOLEAN_TRUE_KEYWORDS = Keyword.spellingsOf(Keyword.Group.TRUE);
+    public static final List<String> BOOLEAN_FALSE_KEYWORDS = Keyword.spellingsOf(Keyword.Group.FALSE);
+    public static final List<String> RESERVED_KEYWORDS = Keyword.spellingsOf(Keyword.Group.RESERVED);
 
     /**
      * Parses a String, numeric, bool, null or mysterious literal
@@ -120,47 +119,41 @@ public class ExpressionParser {
                 literal = literal.replace("(?<!\\)\\t", "\t").replace("(?<!\\)\\r", "\r").replace("(?<!\\)\\n", "\n").replace("\\\\", "\\");
                 return new ConstantExpression(literal);
             }
-            token = token.toLowerCase();
-            if (MYSTERIOUS_KEYWORDS.contains(token)) {
-                next();
-                return ConstantExpression.CONST_MYSTERIOUS;
-            }
-            if (EMPTY_STRING_KEYWORDS.contains(token)) {
-                next();
-                return ConstantExpression.CONST_EMPTY_STRING;
-            }
-            if (NULL_KEYWORDS.contains(token)) {
-                next();
-                return ConstantExpression.CONST_NULL;
-            }
-            if (EMPTY_ARRAY_KEYWORDS.contains(token)) {
-                next();
-                return ConstantExpression.CONST_EMPTY_ARRAY;
-            }
-            if (BOOLEAN_TRUE_KEYWORDS.contains(token)) {
-                next();
-                return ConstantExpression.CONST_TRUE;
-            }
-            if (BOOLEAN_FALSE_KEYWORDS.contains(token)) {
-                next();
-                return ConstantExpression.CONST_FALSE;
+            Keyword keyword = Keyword.ofIgnoreCase(token);
+            if (keyword != null) {
+                switch (keyword.getGroup()) {
+                    case MYSTERIOUS:
+                        next();
+                        return ConstantExpression.CONST_MYSTERIOUS;
+                    case EMPTY_STRING:
+                        next();
+                        return ConstantExpression.CONST_EMPTY_STRING;
+                    case NULL:
+                        next();
+                        return ConstantExpression.CONST_NULL;
+                    case EMPTY_ARRAY:
+                        next();
+                        return ConstantExpression.CONST_EMPTY_ARRAY;
+                    case TRUE:
+                        next();
+                        return ConstantExpression.CONST_TRUE;
+                    case FALSE:
+                        next();
+                        return ConstantExpression.CONST_FALSE;
+                    case RESERVED:
+                        // reserved keywords are skipped
+                        next();
+                        return null;
+                }
             }
-            RockNumber nv = RockNumber.parse(token);
+            RockNumber nv = RockNumber.parse(token.toLowerCase());
             if (nv != null) {
                 next();
                 return new ConstantExpression(nv);
             }
-            if (RESERVED_KEYWORDS.contains(token)) {
-                // reserved keywords are skipped
-                next();
-                return null;
-            }
         }
         return null;
     }
-    private static final List<String> COMMON_VARIABLE_KEYWORDS = Arrays.asList(new String[]{
-        "a", "an", "the", "my", "your", "A", "An", "The", "My", "Your"});
-
     /**
      * parses a variable name or function name (including "it" back-reference)
      *
@@ -173,7 +166,8 @@ public class ExpressionParser {
         }
         String token0 = peekCurrent();
         // "my" "dream"
-        if (COMMON_VARIABLE_KEYWORDS.contains(token0) && containsAtLeast(2)) {
+        Keyword keyword0 = Keyword.ofSentenceCase(token0);
+        if (keyword0 != null && keyword0.getGroup() == Keyword.Group.COMMON_PREFIX && containsAtLeast(2)) {
             // common variable
             String token1 = peekNext();
             if (token1.toLowerCase().equals(token1)) {
@@ -323,199 +317,181 @@ public class ExpressionParser {
             return builtinFunction;
         }
 
-        String token = this.peekCurrent().toLowerCase();
-
-        if (isAfterOperator && "+".equals(token)) {
-            // unary plus: skip
-            next();
-        }
-        // qualifiers
-        if ("on".equals(token) || "by".equals(token) || "in".equals(token)
-                || "to".equals(token) || "for".equals(token) || "from".equals(token) || "near".equals(token)) {
-            next();
-            return new QualifierExpression(token);
-        }
-        // array index
-        if ("at".equals(token)) {
-            next();
-            return new QualifierExpression(token);
-        }
-        // logical operators
-        if ("not".equals(token)) {
-            next();
-            return new NotExpression();
-        }
-        if ("and".equals(token)) {
-            next();
-            return new LogicalExpression(LogicalType.AND);
-        }
-        if ("or".equals(token)) {
-            next();
-            return new LogicalExpression(LogicalType.OR);
-        }
-        if ("nor".equals(token)) {
-            next();
-            return new LogicalExpression(LogicalType.NOR);
-        }
-        if ("is".equals(token)) {
-            next();
-            if (containsAtLeast(3)) {
-                if ("than".equals(peekNext())) {
-                    // "is ... than"
-                    String comparator = this.peekCurrent();
-                    ComparisonType type = null;
-                    switch (comparator) {
-                        case "higher":
-                        case "greater":
-                        case "bigger":
-                        case "stronger":
-                            type = ComparisonType.GREATER_THAN;
-                            break;
-                        case "lower":
-                        case "less":
-                        case "smaller":
-                        case "weaker":
-                            type = ComparisonType.LESS_THAN;
-                            break;
+        Keyword keyword = Keyword.ofIgnoreCase(this.peekCurrent());
+        if (keyword != null) {
+            switch (keyword) {
+                // qualifiers
+                case ON:
+                case BY:
+                case IN:
+                case TO:
+                case FOR:
+                case FROM:
+                case NEAR:
+                // array index
+                case AT:
+                    next();
+                    return new QualifierExpression(keyword.getSpelling());
+                // logical operators
+                case NOT:
+                    next();
+                    return new NotExpression();
+                case AND:
+                    next();
+                    return new LogicalExpression(LogicalType.AND);
+                case OR:
+                    next();
+                    return new LogicalExpression(LogicalType.OR);
+                case NOR:
+                    next();
+                    return new LogicalExpression(LogicalType.NOR);
+                case IS:
+                    next();
+                    return getComparison();
+                case ISNT:
+                case AINT:
+                    next();
+                    return new ComparisonExpression(ComparisonType.NOT_EQUALS);
+                // arithmetical operators
+                case MINUS_SIGN:
+                    next();
+                    // unary minus
+                    return isAfterOperator ? new UnaryMinusExpression() : new MinusExpression();
+                case WITH:
+                    next();
+                    return new WithExpression();
+                case PLUS_SIGN:
+                    if (isAfterOperator) {
+                        // unary plus: skip
+                        next();
                     }
-                    if (type != null) {
-                        next(2);
-                        return new ComparisonExpression(type);
-                    }
-                }
-            }
-            if (containsAtLeast(4)) {
-                if ("as".equals(peekCurrent()) && "as".equals(peekNext(2))) {
-                    // "is as ... as"
-                    String comparator = this.peekNext();
-                    ComparisonType type = null;
-                    switch (comparator) {
-                        case "high":
-                        case "great":
-                        case "big":
-                        case "strong":
-                            type = ComparisonType.GREATER_OR_EQUALS;
-                            break;
-                        case "low":
-                        case "little":
-                        case "small":
-                        case "weak":
-                            type = ComparisonType.LESS_OR_EQUALS;
-                            break;
-                    }
-                    if (type != null) {
-                        next(3);
-                        return new ComparisonExpression(type);
-                    }
-                }
-            }
-            if (containsAtLeast(2) && "not".equals(peekCurrent())) {
-                // "is not"
-                next();
-                return new ComparisonExpression(ComparisonType.NOT_EQUALS);
-            }
-            if (containsAtLeast(2) && "like".equals(peekCurrent())) {
-                // "is like"
-                next();
-                return new InstanceCheckExpression();
+                    next();
+                    return new PlusExpression();
+                case PLUS:
+                    next();
+                    return new PlusExpression();
+                case INTO:
+                    next();
+                    return new IntoExpression();
+                case MINUS:
+                case WITHOUT:
+                    next();
+                    return new MinusExpression();
+                case TIMES:
+                case OF:
+                case TIMES_SIGN:
+                    next();
+                    return new MultiplyExpression();
+                case OVER:
+                case OVER_SIGN:
+                    next();
+                    return new DivideExpression();
+                case ROLL:
+                case POP:
+                    next();
+                    return new RollExpression();
+                case TILL:
+                    next();
+                    return new SliceExpression(SliceExpression.Type.SLICE_TO);
+                case COMMA:
+                    next();
+                    return new ListExpression();
             }
-            if (containsAtLeast(4) && "a".equals(peekCurrent()) && "kind".equals(peekNext()) && "of".equals(peekNext(2))) {
-                // "is a kind of"
-                next(3);
-                return new InstanceCheckExpression();
-            }
-            // simple "is" 
-            return new ComparisonExpression(ComparisonType.EQUALS);
-        }
-        if ("isnt".equals(token) || "aint".equals(token)) {
-            next();
-            return new ComparisonExpression(ComparisonType.NOT_EQUALS);
         }
 
-        // arithmetical operators
-        if (isAfterOperator && "-".equals(token)) {
-            // unary minus
+        // function call
+        if (check(Keyword.TAKING, 0)) {
             next();
-            return new UnaryMinusExpression();
+            return new FunctionCall();
         }
+        return null;
 
-        if ("with".equals(token)) {
-            next();
-            return new WithExpression();
-        }
-        if ("plus".equals(token) || "+".equals(token)) {
-            next();
-            return new PlusExpression();
-        }
-        if ("into".equals(token)) {
-            next();
-            return new IntoExpression();
-        }
-        if ("minus".equals(token) || "without".equals(token) || "-".equals(token)) {
-            next();
-            return new MinusExpression();
-        }
-        if ("times".equals(token) || "of".equals(token) || "*".equals(token)) {
-            next();
-            return new MultiplyExpression();
+    }
+
+    /**
+     * The comparison after "is"
+     *
+     * @return
+     */
+    private CompoundExpression getComparison() {
+        if (containsAtLeast(3)) {
+            if (Keyword.of(peekNext()) == Keyword.THAN) {
+                // "is ... than"
+                ComparisonType type = getComparisonType(this.peekCurrent(), Keyword.Group.GREATER, Keyword.Group.LESS,
+                        ComparisonType.GREATER_THAN, ComparisonType.LESS_THAN);
+                if (type != null) {
+                    next(2);
+                    return new ComparisonExpression(type);
+                }
+            }
         }
-        if ("over".equals(token) || "/".equals(token)) {
-            next();
-            return new DivideExpression();
+        if (containsAtLeast(4)) {
+            if (Keyword.of(peekCurrent()) == Keyword.AS && Keyword.of(peekNext(2)) == Keyword.AS) {
+                // "is as ... as"
+                ComparisonType type = getComparisonType(this.peekNext(), Keyword.Group.GREATER_OR_EQUALS, Keyword.Group.LESS_OR_EQUALS,
+                        ComparisonType.GREATER_OR_EQUALS, ComparisonType.LESS_OR_EQUALS);
+                if (type != null) {
+                    next(3);
+                    return new ComparisonExpression(type);
+                }
+            }
         }
-        if ("roll".equals(token) || "pop".equals(token)) {
+        if (containsAtLeast(2) && Keyword.of(peekCurrent()) == Keyword.NOT) {
+            // "is not"
             next();
-            return new RollExpression();
+            return new ComparisonExpression(ComparisonType.NOT_EQUALS);
         }
-        if ("from".equals(token)) {
+        if (containsAtLeast(2) && Keyword.of(peekCurrent()) == Keyword.LIKE) {
+            // "is like"
             next();
-            return new SliceExpression(SliceExpression.Type.SLICE_FROM);
+            return new InstanceCheckExpression();
         }
-
-        if ("till".equals(token)) {
-            next();
-            return new SliceExpression(SliceExpression.Type.SLICE_TO);
+        if (containsAtLeast(4) && Keyword.of(peekCurrent()) == Keyword.A
+                && Keyword.of(peekNext()) == Keyword.KIND && Keyword.of(peekNext(2)) == Keyword.OF) {
+            // "is a kind of"
+            next(3);
+            return new InstanceCheckExpression();
         }
+        // simple "is" 
+        return new ComparisonExpression(ComparisonType.EQUALS);
+    }
 
-        if (",".equals(token)) {
-            next();
-            return new ListExpression();
+    private static ComparisonType getComparisonType(String comparator, Keyword.Group greater, Keyword.Group less,
+            ComparisonType greaterType, ComparisonType lessType) {
+        if (Keyword.isInGroup(comparator, greater)) {
+            return greaterType;
         }
-
-        // function call
-        if (check("taking", 0)) {
-            next();
-            return new FunctionCall();
+        if (Keyword.isInGroup(comparator, less)) {
+            return lessType;
         }
         return null;
-
     }
 
     private CompoundExpression getBuiltinFunction() {
         BuiltinFunction.Type type = null;
-        String token = this.peekCurrent();
+        Keyword keyword = Keyword.of(this.peekCurrent());
         // sorted
-        if ("sorted".equals(token)) {
+        if (keyword == Keyword.SORTED) {
             type = BuiltinFunction.Type.SORT;
             next();
         } // count of, length of, height of
         // last of
-        else if (containsAtLeast(2) && "of".equals(this.peekNext())) {
-            if ("count".equals(token) || "length".equals(token) || "height".equals(token)) {
+        else if (containsAtLeast(2) && Keyword.of(this.peekNext()) == Keyword.OF) {
+            if (keyword == Keyword.COUNT || keyword == Keyword.LENGTH || keyword == Keyword.HEIGHT) {
                 type = BuiltinFunction.Type.SIZEOF;
                 next(2);
-            } else if ("last".equals(token)) {
+            } else if (keyword == Keyword.LAST) {
                 type = BuiltinFunction.Type.PEEK;
                 next(2);
             }
         } // all keys of
         // all values of
-        else if (containsAtLeast(3) && "all".equals(token) && "of".equals(this.peekNext(2))) {
-            String token2 = peekNext();
-            if ("keys".equals(token2)) {
+        else if (containsAtLeast(3) && keyword == Keyword.ALL && Keyword.of(this.peekNext(2)) == Keyword.OF) {
+            Keyword keyword2 = Keyword.of(peekNext());
+            if (keyword2 == Keyword.KEYS) {
                 type = BuiltinFunction.Type.KEYS;
                 next(3);
-            } else if ("values".equals(token2)) {
+            } else if (keyword2 == Keyword.VALUES) {
                 type = BuiltinFunction.Type.VALUES;
                 next(3);
             }
@@ -524,10 +500,14 @@ public class ExpressionParser {
         return type == null ? null : new BuiltinFunction(type);
     }
 
-    private boolean check(String keyword, int offset) {
+    private boolean check(Keyword keyword, int offset) {
         if (list.size() >= idx + offset + 1) {
+            if (!block.hasAliases()) {
+                // without aliases only the keyword itself matches
+                return Keyword.of(peekCurrent()) == keyword;
+            }
             List<String> keywordList = new ArrayList<>();
-            keywordList.add(keyword);
+            keywordList.add(keyword.getSpelling());
             List<List<String>> allAliases = block.getAliasesFor(keywordList);
             for (List<String> aliasParts : allAliases) {
                 boolean matching = true;
@@ -548,6 +528,8 @@ public class ExpressionParser {
 
     private static class EndOfExpression extends CompoundExpression {
 
+        private static final long serialVersionUID = 1L;
+
         @Override
         public int getPrecedence() {
             return 999;
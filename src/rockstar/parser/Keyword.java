@@ -0,0 +1,284 @@
+package rockstar.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyword symbol table of the expression parser. The tokenizer replaces the
+ * keyword tokens with the interned spelling, so a lookup finds them by
+ * identity, and the parser switches on the symbols instead of comparing the
+ * tokens to keyword lists.
+ *
+ * @author Gabor
+ */
+public enum Keyword {
+
+    // qualifiers
+    ON("on"),
+    BY("by"),
+    IN("in"),
+    TO("to"),
+    FOR("for"),
+    FROM("from"),
+    NEAR("near"),
+    AT("at"),
+    // logical and comparison operators
+    NOT("not"),
+    AND("and"),
+    OR("or"),
+    NOR("nor"),
+    IS("is"),
+    ISNT("isnt"),
+    AINT("aint"),
+    THAN("than"),
+    AS("as"),
+    LIKE("like"),
+    KIND("kind"),
+    // arithmetic and list operators
+    WITH("with"),
+    PLUS("plus"),
+    PLUS_SIGN("+"),
+    INTO("into"),
+    MINUS("minus"),
+    WITHOUT("without"),
+    MINUS_SIGN("-"),
+    TIMES("times"),
+    OF("of"),
+    TIMES_SIGN("*"),
+    OVER("over"),
+    OVER_SIGN("/"),
+    ROLL("roll"),
+    POP("pop"),
+    TILL("till"),
+    COMMA(","),
+    TAKING("taking"),
+    // built-in functions
+    SORTED("sorted"),
+    COUNT("count"),
+    LENGTH("length"),
+    HEIGHT("height"),
+    LAST("last"),
+    ALL("all"),
+    KEYS("keys"),
+    VALUES("values"),
+    // "is ... than" comparators
+    HIGHER("higher", Group.GREATER),
+    GREATER("greater", Group.GREATER),
+    BIGGER("bigger", Group.GREATER),
+    STRONGER("stronger", Group.GREATER),
+    LOWER("lower", Group.LESS),
+    LESS("less", Group.LESS),
+    SMALLER("smaller", Group.LESS),
+    WEAKER("weaker", Group.LESS),
+    // "is as ... as" comparators
+    HIGH("high", Group.GREATER_OR_EQUALS),
+    GREAT("great", Group.GREATER_OR_EQUALS),
+    BIG("big", Group.GREATER_OR_EQUALS),
+    STRONG("strong", Group.GREATER_OR_EQUALS),
+    LOW("low", Group.LESS_OR_EQUALS),
+    LITTLE("little", Group.LESS_OR_EQUALS),
+    SMALL("small", Group.LESS_OR_EQUALS),
+    WEAK("weak", Group.LESS_OR_EQUALS),
+    // literals
+    MYSTERIOUS("mysterious", Group.MYSTERIOUS),
+    EMPTY("empty", Group.EMPTY_STRING),
+    SILENT("silent", Group.EMPTY_STRING),
+    SILENCE("silence", Group.EMPTY_STRING),
+    NULL("null", Group.NULL),
+    NOTHING("nothing", Group.NULL),
+    NOWHERE("nowhere", Group.NULL),
+    NOBODY("nobody", Group.NULL),
+    GONE("gone", Group.NULL),
+    VOID("void", Group.EMPTY_ARRAY),
+    HOLLOW("hollow", Group.EMPTY_ARRAY),
+    TRUE("true", Group.TRUE),
+    RIGHT("right", Group.TRUE),
+    YES("yes", Group.TRUE),
+    OK("ok", Group.TRUE),
+    FALSE("false", Group.FALSE),
+    WRONG("wrong", Group.FALSE),
+    NO("no", Group.FALSE),
+    LIES("lies", Group.FALSE),
+    DEFINITELY("definitely", Group.RESERVED),
+    MAYBE("maybe", Group.RESERVED),
+    // common variable prefixes
+    A("a", Group.COMMON_PREFIX),
+    AN("an", Group.COMMON_PREFIX),
+    THE("the", Group.COMMON_PREFIX),
+    MY("my", Group.COMMON_PREFIX),
+    YOUR("your", Group.COMMON_PREFIX),
+    // self references
+    SELF("self", Group.SELF),
+    MYSELF("myself", Group.SELF),
+    YOURSELF("yourself", Group.SELF),
+    HIMSELF("himself", Group.SELF),
+    HERSELF("herself", Group.SELF),
+    ITSELF("itself", Group.SELF),
+    OURSELVES("ourselves", Group.SELF),
+    YOURSELVES("yourselves", Group.SELF),
+    THEMSELVES("themselves", Group.SELF),
+    // parent references
+    PARENT("parent", Group.PARENT),
+    FATHER("father", Group.PARENT),
+    MOTHER("mother", Group.PARENT),
+    PAPA("papa", Group.PARENT),
+    MAMA("mama", Group.PARENT),
+    // last named variable references
+    IT("it", Group.PRONOUN),
+    HE("he", Group.PRONOUN),
+    SHE("she", Group.PRONOUN),
+    HIM("him", Group.PRONOUN),
+    HER("her", Group.PRONOUN),
+    THEY("they", Group.PRONOUN),
+    THEM("them", Group.PRONOUN),
+    ZE("ze", Group.PRONOUN),
+    HIR("hir", Group.PRONOUN),
+    ZIE("zie", Group.PRONOUN),
+    ZIR("zir", Group.PRONOUN),
+    XE("xe", Group.PRONOUN),
+    XEM("xem", Group.PRONOUN),
+    VE("ve", Group.PRONOUN),
+    VER("ver", Group.PRONOUN);
+
+    public enum Group {
+        OPERATOR,
+        GREATER,
+        LESS,
+        GREATER_OR_EQUALS,
+        LESS_OR_EQUALS,
+        MYSTERIOUS,
+        EMPTY_STRING,
+        NULL,
+        EMPTY_ARRAY,
+        TRUE,
+        FALSE,
+        RESERVED,
+        COMMON_PREFIX,
+        SELF,
+        PARENT,
+        PRONOUN
+    }
+
+    private static final Map<String, Keyword> BY_SPELLING = new HashMap<>();
+
+    static {
+        for (Keyword keyword : values()) {
+            BY_SPELLING.put(keyword.spelling, keyword);
+        }
+    }
+
+    private final String spelling;
+    private final Group group;
+
+    Keyword(String spelling) {
+        this(spelling, Group.OPERATOR);
+    }
+
+    Keyword(String spelling, Group group) {
+        this.spelling = spelling;
+        this.group = group;
+    }
+
+    public String getSpelling() {
+        return spelling;
+    }
+
+    public Group getGroup() {
+        return group;
+    }
+
+    /**
+     * The keyword spelled exactly as the token (keywords are lower case)
+     *
+     * @param token
+     * @return the keyword or null
+     */
+    public static Keyword of(String token) {
+        return BY_SPELLING.get(token);
+    }
+
+    /**
+     * The keyword of the token in any case
+     *
+     * @param token
+     * @return the keyword or null
+     */
+    public static Keyword ofIgnoreCase(String token) {
+        Keyword keyword = BY_SPELLING.get(token);
+        if (keyword == null && hasUpperCase(token)) {
+            keyword = BY_SPELLING.get(token.toLowerCase());
+        }
+        return keyword;
+    }
+
+    /**
+     * The keyword of a lower case or capitalized token ("the" or "The", but
+     * not "THE")
+     *
+     * @param token
+     * @return the keyword or null
+     */
+    public static Keyword ofSentenceCase(String token) {
+        Keyword keyword = BY_SPELLING.get(token);
+        if (keyword == null && !token.isEmpty() && Character.isUpperCase(token.charAt(0))) {
+            keyword = BY_SPELLING.get(token.toLowerCase());
+            if (keyword != null && !token.regionMatches(1, keyword.spelling, 1, token.length() - 1)) {
+                keyword = null;
+            }
+        }
+        return keyword;
+    }
+
+    /**
+     * Checks if the token is spelled exactly as a keyword of the group
+     *
+     * @param token
+     * @param group
+     * @return
+     */
+    public static boolean isInGroup(String token, Group group) {
+        Keyword keyword = BY_SPELLING.get(token);
+        return keyword != null && keyword.group == group;
+    }
+
+    /**
+     * The interned spelling for the keyword tokens, the token itself
+     * otherwise
+     *
+     * @param token
+     * @return
+     */
+    public static String intern(String token) {
+        Keyword keyword = BY_SPELLING.get(token);
+        return (keyword == null) ? token : keyword.spelling;
+    }
+
+    /**
+     * The spellings of the keywords of a group
+     *
+     * @param group
+     * @return
+     */
+    public static List<String> spellingsOf(Group group) {
+        List<String> spellings = new ArrayList<>();
+        for (Keyword keyword : values()) {
+            if (keyword.group == group) {
+                spellings.add(keyword.spelling);
+            }
+        }
+        return Collections.unmodifiableList(spellings);
+    }
+
+    private static boolean hasUpperCase(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isUpperCase(token.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -5,16 +5,23 @@
  */
 package rockstar.parser;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
+import rockstar.expression.Expression;
 
 /**
  *
  * @author Gabor
  */
-public class Line {
+public class Line implements Serializable {
     
+    private static final long serialVersionUID = 1L;
+
     public static Line STARTER_LINE = new Line("", "-", 0);
 
     private String line;
@@ -22,7 +29,11 @@ public class Line {
     private final String fileName;
     private final int lnum;
 
-    private final List<String> tokens = new ArrayList<>();
+    // not saved in the precompiled program, tokenized again on demand
+    private transient List<String> tokens = new ArrayList<>();
+
+    // parsed token ranges, shared by the checkers while the line is parsed
+    private transient Map<ParseKey, Expression> parseMemo = null;
 
     public Line(String line, String fileName, int lnum) {
         this.line = line;
@@ -49,20 +60,30 @@ public class Line {
     }
 
     public List<String> getTokens() {
+        if (tokens == null) {
+            tokens = new ArrayList<>();
+            tokenize();
+        }
         return tokens;
     }
 
     private void tokenize() {
+        char[] chars = line.toCharArray();
 
         // trim trailing extra chars
-        line = line.replaceAll("[ ,;:]+$", "");
+        int len = chars.length;
+        while (len > 0 && " ,;:".indexOf(chars[len - 1]) >= 0) {
+            len--;
+        }
+        if (len < chars.length) {
+            line = line.substring(0, len);
+        }
 
-        int len = line.length();
+        // the characters of the current word, reused for all words
+        StringBuilder word = new StringBuilder();
         int pos = 0;
-        String nextToken = null;
-
         while (pos < len) {
-            switch (line.charAt(pos)) {
+            switch (chars[pos]) {
                 case ' ':
                     pos++;
                     break;
@@ -82,93 +103,179 @@ public class Line {
                     pos = nextCB + 1;
                     break;
                 default:
-                    int limit = pos;
-                    StringBuilder tokenBuilder = new StringBuilder();
-                    boolean endOfToken = false;
-                    while (!endOfToken) {
-                        char cl = (limit < len) ? line.charAt(limit) : '\0';
-                        if ("0123456789.".indexOf(cl) >= 0 //                                || (cl == '-' && limit < len - 1 && "0123456789.".indexOf(line.charAt(limit + 1)) >= 0)
-                                ) {
-                            // regular decimal number (integral or fraction)
-                            while (limit < len
-                                    && (Character.isDigit(cl) || cl == '.' || cl == 'e' || cl == 'E')) {
-                                limit++;
-                                if (limit < len) {
-                                    cl = line.charAt(limit);
-                                }
-                            }
-                            nextToken = line.substring(pos, limit);
-                            pos = limit;
-                            endOfToken = true;
-                        } else if ("+*/-".indexOf(cl) >= 0) {
-                            // single operators are single char
-                            limit++;
-                            nextToken = line.substring(pos, limit);
-                            pos = limit;
-                            endOfToken = true;
-                        } else {
-                            // identifier
-                            while (limit < len && Character.isLetterOrDigit(cl)) {
-                                limit++;
-                                if (limit < len) {
-                                    cl = line.charAt(limit);
-                                }
-
-                            }
-                        }
-                        tokenBuilder.append(line.substring(pos, limit));
-                        if (limit >= len) {
-                            endOfToken = true;
-                        } else if (!endOfToken) {
-                            char c = line.charAt(limit);
-                            String right = line.substring(limit);
-                            if (c == '\'') {
-                                if (right.matches("'s\\b.*")) {
-                                    // "'s" becomes " is "
-                                    endOfToken = true;
-                                    nextToken = "is";
-                                    limit += 2;
-                                } else if (right.startsWith("'n'")) {
-                                    // "'n'" becomes " and "
-                                    endOfToken = true;
-                                    nextToken = "and";
-                                    limit += 3;
-                                } else {
-                                    // skip single quote within word
-                                    limit++;
-                                    pos = limit;
-                                }
-                            } else if (right.startsWith(", and")) {
-                                // double and: skip the first
-                                nextToken = ",";
-                                endOfToken = true;
-                                limit += 5;
-                            } else if (c == '&' || c == ',') {
-                                // "&" and "," becomes " and "
-                                endOfToken = true;
-                                nextToken = ",";
-                                limit++;
-                            } else {
-                                // skip character, end token if word separator
-                                if (c != '+' && c != '-' && c != '/' && c != '*') {
-                                    limit++;
-                                } 
-                                pos = limit;
-                                endOfToken = true;
-                            }
-                        }
+                    pos = scanWord(chars, pos, len, word);
+                    break;
+            }
+        }
+    }
+
+    private static final String OPERATOR_CHARS = "+*/-";
+    private static final String[] OPERATOR_TOKENS = {"+", "*", "/", "-"};
+
+    /**
+     * Scans a word, a number or an operator from the position. Single quotes
+     * within a word are skipped, "'s" and "'n'" become separate "is" and "and"
+     * tokens, "&" and "," become a "," token.
+     *
+     * @param chars the characters of the line
+     * @param pos the start position
+     * @param len the length of the trimmed line
+     * @param word buffer for the characters of the word
+     * @return the position after the scanned characters
+     */
+    private int scanWord(char[] chars, int pos, int len, StringBuilder word) {
+        word.setLength(0);
+        String nextToken = null;
+        int limit = pos;
+        boolean endOfToken = false;
+        while (!endOfToken) {
+            char cl = (limit < len) ? chars[limit] : '\0';
+            if ((cl >= '0' && cl <= '9') || cl == '.') {
+                // regular decimal number (integral or fraction)
+                while (limit < len
+                        && (Character.isDigit(cl) || cl == '.' || cl == 'e' || cl == 'E')) {
+                    limit++;
+                    if (limit < len) {
+                        cl = chars[limit];
                     }
-                    if (tokenBuilder.length() > 0) {
-                        tokens.add(tokenBuilder.toString());
+                }
+                nextToken = new String(chars, pos, limit - pos);
+                pos = limit;
+                endOfToken = true;
+            } else if (OPERATOR_CHARS.indexOf(cl) >= 0) {
+                // single operators are single char
+                nextToken = OPERATOR_TOKENS[OPERATOR_CHARS.indexOf(cl)];
+                limit++;
+                pos = limit;
+                endOfToken = true;
+            } else {
+                // identifier
+                while (limit < len && Character.isLetterOrDigit(cl)) {
+                    limit++;
+                    if (limit < len) {
+                        cl = chars[limit];
                     }
-                    pos = limit;
-                    break;
+                }
             }
-            if (nextToken != null) {
-                // add second token, if detected
-                tokens.add(nextToken);
-                nextToken = null;
+            word.append(chars, pos, limit - pos);
+            if (limit >= len) {
+                endOfToken = true;
+            } else if (!endOfToken) {
+                char c = chars[limit];
+                if (c == '\'') {
+                    if (limit + 1 < len && chars[limit + 1] == 's'
+                            && (limit + 2 >= len || !isWordChar(chars[limit + 2]))) {
+                        // "'s" becomes " is "
+                        endOfToken = true;
+                        nextToken = "is";
+                        limit += 2;
+                    } else if (line.startsWith("'n'", limit)) {
+                        // "'n'" becomes " and "
+                        endOfToken = true;
+                        nextToken = "and";
+                        limit += 3;
+                    } else {
+                        // skip single quote within word
+                        limit++;
+                        pos = limit;
+                    }
+                } else if (line.startsWith(", and", limit)) {
+                    // double and: skip the first
+                    nextToken = ",";
+                    endOfToken = true;
+                    limit += 5;
+                } else if (c == '&' || c == ',') {
+                    // "&" and "," becomes " and "
+                    endOfToken = true;
+                    nextToken = ",";
+                    limit++;
+                } else {
+                    // skip character, end token if word separator
+                    if (OPERATOR_CHARS.indexOf(c) < 0) {
+                        limit++;
+                    }
+                    endOfToken = true;
+                }
+            }
+        }
+        if (word.length() > 0) {
+            // keywords are interned, the parser finds them by identity
+            tokens.add(Keyword.intern(word.toString()));
+        }
+        if (nextToken != null) {
+            // add second token, if detected
+            tokens.add(nextToken);
+        }
+        return limit;
+    }
+
+    /**
+     * Word character for the word boundary after "'s", the same as the
+     * boundary of the regular expressions
+     */
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || Character.getType(c) == Character.NON_SPACING_MARK;
+    }
+
+    /**
+     * Parses a token range at most once while the statement of the line is
+     * being parsed. Failed parses (null) are remembered, too.
+     *
+     * @param from the first token index
+     * @param to the token index after the range
+     * @param kind the kind of the parse (e.g. expression or mutation)
+     * @param defaultExpr the default expression of the parse, compared by
+     * identity
+     * @param parser parses the range
+     * @return the parsed expression or null
+     */
+    public Expression parseOnce(int from, int to, Object kind, Expression defaultExpr, Supplier<Expression> parser) {
+        if (parseMemo == null) {
+            parseMemo = new HashMap<>();
+        }
+        ParseKey key = new ParseKey(from, to, kind, defaultExpr);
+        if (parseMemo.containsKey(key)) {
+            return parseMemo.get(key);
+        }
+        Expression expr = parser.get();
+        parseMemo.put(key, expr);
+        return expr;
+    }
+
+    /**
+     * The statement of the line is parsed, the parsed ranges are not needed
+     * anymore
+     */
+    public void clearParseMemo() {
+        parseMemo = null;
+    }
+
+    private static class ParseKey {
+
+        private final int from;
+        private final int to;
+        private final Object kind;
+        private final Expression defaultExpr;
+
+        ParseKey(int from, int to, Object kind, Expression defaultExpr) {
+            this.from = from;
+            this.to = to;
+            this.kind = kind;
+            this.defaultExpr = defaultExpr;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * from + to) * 31 + kind.hashCode() + System.identityHashCode(defaultExpr);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof ParseKey) {
+                ParseKey o = (ParseKey) obj;
+                return from == o.from && to == o.to && kind.equals(o.kind) && defaultExpr == o.defaultExpr;
             }
+            return false;
         }
     }
 
@@ -117,6 +117,11 @@ public class Parser {
             parseError(ex.getClass().getSimpleName() + ": " + ex.getMessage(), l);
         }
 
+        // bind the frame-local variable references
+        new VariableResolver().resolve(prg);
+        // mark the self tail calls
+        new TailCallResolver().resolve(prg);
+
         return prg;
     }
 
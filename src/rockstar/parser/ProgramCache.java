@@ -0,0 +1,424 @@
+package rockstar.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import rockstar.Rockstar;
+import rockstar.runtime.RockNumber;
+import rockstar.statement.Program;
+
+/**
+ * Precompiled programs: the parsed program tree is serialized into a .rockc
+ * file next to the source, so the source is not parsed again as long as it is
+ * not changed.
+ *
+ * The cache file starts with a key: the SHA-256 hash of the source, the
+ * interpreter version and build and the number mode (the number literals are
+ * parsed in the current number mode). A cache file with a different key is
+ * stale, so is a file that cannot be read: the source is parsed instead. The
+ * build hash is calculated from the interpreter classes, so a changed parser or
+ * node class makes the cache files stale, even if the serialized form is
+ * compatible. The program name is not part of the
+ * key, the debug info of a loaded program has the name it was written with
+ * (e.g. "./prg.rock" instead of "prg.rock").
+ *
+ * A cache file may come from anywhere (e.g. in a jar), so only the classes of
+ * the program tree are deserialized: the rockstar classes and the collections
+ * and boxed values they contain.
+ *
+ * Programs are parsed through the cache by the run and list commands and by
+ * the class imports. The run and list commands refresh an existing stale cache
+ * file, new cache files are written by the precompile command only.
+ *
+ * @author Gabor
+ */
+public class ProgramCache {
+
+    public static final String EXTENSION = ".rockc";
+
+    private static final String SOURCE_EXTENSION = ".rock";
+    private static final int MAGIC = 0x524F434B; // "ROCK"
+    // increment when the layout of the cache file changes
+    private static final int FORMAT_VERSION = 2;
+
+    // the non-rockstar classes in a program tree
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+            "java.lang.Boolean", "java.lang.Double", "java.lang.Enum", "java.lang.Integer",
+            "java.lang.Long", "java.lang.Number",
+            "java.util.ArrayList", "java.util.Arrays$ArrayList", "java.util.Collections$EmptyList",
+            "java.util.Collections$EmptyMap", "java.util.HashMap", "java.util.HashSet",
+            "java.util.LinkedList"));
+
+    private static boolean enabled = true;
+
+    // the hash of the interpreter classes, calculated on first use
+    private static byte[] buildHash = null;
+
+    public static void setEnabled(boolean isEnabled) {
+        enabled = isEnabled;
+    }
+
+    /**
+     * The cache file of a source file: the .rock extension is replaced
+     *
+     * @param source
+     * @return
+     */
+    public static File getCacheFile(File source) {
+        return new File(source.getParentFile(), getCachePath(source.getName()));
+    }
+
+    /**
+     * The path of the cache file of a source path (file or resource)
+     *
+     * @param sourcePath
+     * @return
+     */
+    public static String getCachePath(String sourcePath) {
+        if (sourcePath.endsWith(SOURCE_EXTENSION)) {
+            sourcePath = sourcePath.substring(0, sourcePath.length() - SOURCE_EXTENSION.length());
+        }
+        return sourcePath + EXTENSION;
+    }
+
+    /**
+     * Parse a source file, or load it from the cache file, if that is fresh
+     *
+     * @param filename
+     * @return
+     * @throws FileNotFoundException
+     */
+    public static Program parse(String filename) throws FileNotFoundException {
+        return parse(new File(filename), filename);
+    }
+
+    /**
+     * Parse a source file with the given program name, or load it from the
+     * cache file, if that is fresh. A stale cache file is written again.
+     *
+     * @param file
+     * @param name
+     * @return
+     * @throws FileNotFoundException
+     */
+    public static Program parse(File file, String name) throws FileNotFoundException {
+        byte[] source = readSource(file, name);
+        if (!enabled) {
+            return parseSource(source, name);
+        }
+        File cacheFile = getCacheFile(file);
+        if (cacheFile.isFile()) {
+            // the key (with the build hash) is calculated only if there is a cache file
+            byte[] key = getKey(source);
+            Program prg = read(cacheFile, key);
+            if (prg == null) {
+                prg = parseSource(source, name);
+                try {
+                    write(cacheFile, prg, key);
+                } catch (IOException ex) {
+                    // the stale cache file is not used, the program is parsed each time
+                }
+            }
+            return prg;
+        }
+        return parseSource(source, name);
+    }
+
+    /**
+     * Parse a source stream, or load it from the cache stream, if that is
+     * fresh (e.g. imported classes). The streams are closed.
+     *
+     * @param is source stream
+     * @param name program name
+     * @param cached cache stream, or null
+     * @return
+     */
+    public static Program parse(InputStream is, String name, InputStream cached) {
+        byte[] source;
+        try {
+            source = readFully(is);
+        } catch (IOException ex) {
+            throw new ParseException(ex.getClass().getSimpleName() + ": " + ex.getMessage(), Line.STARTER_LINE);
+        } finally {
+            close(is);
+        }
+        Program prg = null;
+        if (enabled && cached != null) {
+            try {
+                prg = read(new BufferedInputStream(cached), getKey(source));
+            } finally {
+                close(cached);
+            }
+        }
+        return (prg != null) ? prg : parseSource(source, name);
+    }
+
+    /**
+     * Write the cache file of a source file, if it is not fresh
+     *
+     * @param file
+     * @return true if the cache file was written, false if it was fresh
+     * @throws FileNotFoundException
+     * @throws IOException
+     */
+    public static boolean precompile(File file) throws FileNotFoundException, IOException {
+        String name = file.getPath();
+        byte[] source = readSource(file, name);
+        byte[] key = getKey(source);
+        File cacheFile = getCacheFile(file);
+        if (cacheFile.isFile() && read(cacheFile, key) != null) {
+            return false;
+        }
+        write(cacheFile, parseSource(source, name), key);
+        return true;
+    }
+
+    /**
+     * The cache key of a source
+     *
+     * @param source the source bytes
+     * @return
+     */
+    public static byte[] getKey(byte[] source) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update((FORMAT_VERSION + "|" + Rockstar.VERSION + "|" + RockNumber.isDec64() + "|").getBytes(StandardCharsets.UTF_8));
+            md.update(getBuildHash());
+            md.update(source);
+            return md.digest();
+        } catch (NoSuchAlgorithmException ex) {
+            // SHA-256 is supported by all Java platforms
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The hash of the interpreter build: the content of the jar file, or the
+     * class files of the rockstar package, if the classes are loaded from a
+     * directory. If the classes cannot be read, the build is identified by the
+     * version only.
+     *
+     * @return
+     */
+    private static synchronized byte[] getBuildHash() {
+        if (buildHash == null) {
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                try {
+                    CodeSource cs = ProgramCache.class.getProtectionDomain().getCodeSource();
+                    File location = (cs == null) ? null : new File(cs.getLocation().toURI());
+                    if (location != null && location.isFile()) {
+                        md.update(Files.readAllBytes(location.toPath()));
+                    } else if (location != null && location.isDirectory()) {
+                        List<Path> classFiles;
+                        try (Stream<Path> paths = Files.walk(new File(location, "rockstar").toPath())) {
+                            classFiles = paths.filter(p -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+                        }
+                        for (Path classFile : classFiles) {
+                            md.update(classFile.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                            md.update(Files.readAllBytes(classFile));
+                        }
+                    }
+                } catch (IOException | URISyntaxException | IllegalArgumentException | SecurityException ex) {
+                    // unknown build
+                }
+                buildHash = md.digest();
+            } catch (NoSuchAlgorithmException ex) {
+                // SHA-256 is supported by all Java platforms
+                throw new IllegalStateException(ex);
+            }
+        }
+        return buildHash;
+    }
+
+    /**
+     * Serialize a parsed program with its key
+     *
+     * @param os
+     * @param prg
+     * @param key
+     * @throws IOException
+     */
+    public static void write(OutputStream os, Program prg, byte[] key) throws IOException {
+        DataOutputStream dos = new DataOutputStream(os);
+        dos.writeInt(MAGIC);
+        dos.writeInt(key.length);
+        dos.write(key);
+        ObjectOutputStream oos = new ProgramOutputStream(dos);
+        oos.writeObject(prg);
+        oos.flush();
+    }
+
+    /**
+     * Equal strings (variable names, tokens) are written once, the later
+     * occurrences are written as references
+     */
+    private static class ProgramOutputStream extends ObjectOutputStream {
+
+        private final Map<String, String> strings = new HashMap<>();
+
+        ProgramOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+            if (obj instanceof String) {
+                String s = (String) obj;
+                String first = strings.putIfAbsent(s, s);
+                return (first == null) ? s : first;
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * Deserialize a program, if it has the same key
+     *
+     * @param is
+     * @param key
+     * @return the program, or null if the key is different or the content
+     * cannot be read
+     */
+    public static Program read(InputStream is, byte[] key) {
+        DataInputStream dis = new DataInputStream(is);
+        try {
+            if (dis.readInt() != MAGIC || dis.readInt() != key.length) {
+                return null;
+            }
+            byte[] storedKey = new byte[key.length];
+            dis.readFully(storedKey);
+            if (!Arrays.equals(storedKey, key)) {
+                return null;
+            }
+            return (Program) new ProgramInputStream(dis).readObject();
+        } catch (ClassNotFoundException | IOException | RuntimeException ex) {
+            // not a cache file, or written by a different build
+            return null;
+        }
+    }
+
+    /**
+     * Only the allowed classes are deserialized
+     */
+    private static class ProgramInputStream extends ObjectInputStream {
+
+        ProgramInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isAllowed(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "not allowed in a program");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+            throw new InvalidClassException("proxy", "not allowed in a program");
+        }
+
+        private static boolean isAllowed(String name) {
+            int dims = 0;
+            while (name.charAt(dims) == '[') {
+                dims++;
+            }
+            if (dims > 0) {
+                // array class: [I, [Lrockstar.runtime.Value; etc.
+                if (name.length() == dims + 1) {
+                    // primitive array
+                    return true;
+                }
+                name = name.substring(dims + 1, name.length() - 1);
+            }
+            return name.startsWith("rockstar.") || ALLOWED_CLASSES.contains(name);
+        }
+    }
+
+    private static Program read(File cacheFile, byte[] key) {
+        try (InputStream is = new BufferedInputStream(new FileInputStream(cacheFile))) {
+            return read(is, key);
+        } catch (IOException ex) {
+            // parsed instead
+            return null;
+        }
+    }
+
+    private static void write(File cacheFile, Program prg, byte[] key) throws IOException {
+        // a reader never sees a partially written file
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(tmpFile))) {
+            write(os, prg, key);
+        }
+        Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Program parseSource(byte[] source, String name) {
+        return new Parser(new ByteArrayInputStream(source), name).parse();
+    }
+
+    private static byte[] readSource(File file, String name) throws FileNotFoundException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(name);
+        }
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException ex) {
+            throw new ParseException(ex.getClass().getSimpleName() + ": " + ex.getMessage(), Line.STARTER_LINE);
+        }
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        byte[] buf = new byte[8192];
+        int len = 0;
+        int n;
+        while ((n = is.read(buf, len, buf.length - len)) > 0) {
+            len += n;
+            if (len == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+        }
+        return Arrays.copyOf(buf, len);
+    }
+
+    private static void close(InputStream is) {
+        try {
+            is.close();
+        } catch (IOException ex) {
+            // nothing to do
+        }
+    }
+
+}
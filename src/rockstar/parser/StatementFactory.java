@@ -5,6 +5,12 @@
  */
 package rockstar.parser;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import rockstar.parser.checker.*;
 import rockstar.statement.Block;
 import rockstar.statement.Statement;
@@ -15,7 +21,7 @@ import rockstar.statement.Statement;
  */
 public class StatementFactory {
 
-    private static final Checker CHECKERS[] = new Checker[]{
+    private static final Checker<?, ?, ?> CHECKERS[] = new Checker<?, ?, ?>[]{
         new AliasChecker(),
         new PkgDefChecker(),
         new ImportChecker(),
@@ -50,20 +56,100 @@ public class StatementFactory {
         new NoOpChecker()
     };
 
+    // dispatch index: the checkers that may match a line starting with a keyword
+    private static final Map<String, Checker<?, ?, ?>[]> CHECKERS_BY_KEYWORD = new HashMap<>();
+    // the checkers that may match a line starting with any other token
+    private static final Checker<?, ?, ?>[] CHECKERS_BY_DEFAULT;
+
+    static {
+        Set<String> keywords = new HashSet<>();
+        for (Checker<?, ?, ?> checker : CHECKERS) {
+            ParamList[] paramLists = checker.getParamLists();
+            if (paramLists != null) {
+                for (ParamList params : paramLists) {
+                    if (params.getLeadingToken() != null) {
+                        keywords.add(params.getLeadingToken());
+                    }
+                }
+            }
+        }
+        keywords.forEach(keyword -> CHECKERS_BY_KEYWORD.put(keyword, getCheckersFor(keyword)));
+        CHECKERS_BY_DEFAULT = getCheckersFor(null);
+    }
+
+    /**
+     * The checkers in the original order that have a pattern starting with
+     * the keyword or with a placeholder
+     *
+     * @param keyword the first token, null for a non-keyword
+     * @return
+     */
+    private static Checker<?, ?, ?>[] getCheckersFor(String keyword) {
+        List<Checker<?, ?, ?>> checkers = new ArrayList<>();
+        for (Checker<?, ?, ?> checker : CHECKERS) {
+            ParamList[] paramLists = checker.getParamLists();
+            boolean canMatch = (paramLists == null);
+            if (paramLists != null) {
+                for (ParamList params : paramLists) {
+                    String leadingToken = params.getLeadingToken();
+                    canMatch |= (leadingToken == null) || leadingToken.equals(keyword);
+                }
+            }
+            if (canMatch) {
+                checkers.add(checker);
+            }
+        }
+        return checkers.toArray(new Checker<?, ?, ?>[checkers.size()]);
+    }
+
     public static Statement getStatementFor(Line line, Block currentBlock) {
+        if (currentBlock.hasAliases()) {
+            // the keywords may have aliases: all checkers are tried
+            return getStatementFor(line, currentBlock, CHECKERS, null);
+        }
+        List<String> tokens = line.getTokens();
+        List<String> lcTokens = new ArrayList<>(tokens.size());
+        tokens.forEach(token -> lcTokens.add(token.toLowerCase()));
+        Checker<?, ?, ?>[] checkers = lcTokens.isEmpty() ? CHECKERS_BY_DEFAULT
+                : CHECKERS_BY_KEYWORD.getOrDefault(lcTokens.get(0), CHECKERS_BY_DEFAULT);
+        return getStatementFor(line, currentBlock, checkers, lcTokens);
+    }
+
+    private static Statement getStatementFor(Line line, Block currentBlock, Checker<?, ?, ?>[] checkers, List<String> lcTokens) {
         Statement stmt = null;
-        for (Checker checker : CHECKERS) {
-            stmt = checker.initialize(line, currentBlock).check();
-            if (stmt != null) {
-                stmt.setDebugInfo(line);
-                stmt.setBlock(currentBlock);
-                break;
+        try {
+            for (Checker<?, ?, ?> checker : checkers) {
+                if (lcTokens != null && !hasAnchors(checker, lcTokens)) {
+                    // a keyword of each pattern is missing from the line
+                    continue;
+                }
+                stmt = checker.initialize(line, currentBlock).check();
+                if (stmt != null) {
+                    stmt.setDebugInfo(line);
+                    stmt.setBlock(currentBlock);
+                    break;
+                }
             }
+        } finally {
+            line.clearParseMemo();
         }
         return stmt;
     }
 
-    private static class NoOpChecker extends Checker {
+    private static boolean hasAnchors(Checker<?, ?, ?> checker, List<String> lcTokens) {
+        ParamList[] paramLists = checker.getParamLists();
+        if (paramLists == null) {
+            return true;
+        }
+        for (ParamList params : paramLists) {
+            if (params.hasAnchors(lcTokens)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class NoOpChecker extends Checker<Object, Object, Object> {
 
         @Override
         public Statement check() {
@@ -0,0 +1,54 @@
+package rockstar.parser;
+
+import rockstar.expression.Expression;
+import rockstar.expression.FunctionCall;
+import rockstar.statement.Block;
+import rockstar.statement.ClassBlock;
+import rockstar.statement.FunctionBlock;
+import rockstar.statement.ReturnStatement;
+import rockstar.statement.Statement;
+
+/**
+ * Link-time detection of the self tail calls, run after parsing.
+ *
+ * A "give back" statement returning a call of its own function (by name,
+ * without an object) is marked, so that it can restart the function instead
+ * of a nested call. Whether the name really refers to the same function is
+ * checked at runtime.
+ *
+ * @author Gabor
+ */
+public class TailCallResolver {
+
+    public void resolve(Block block) {
+        resolveBlock(block, null);
+    }
+
+    private void resolveBlock(Block block, FunctionBlock function) {
+        for (Statement stmt : block.getStatements()) {
+            if (stmt instanceof FunctionBlock) {
+                // nested functions and methods have their own tail calls
+                resolveBlock((Block) stmt, (FunctionBlock) stmt);
+            } else if (stmt instanceof ReturnStatement) {
+                Expression expr = ((ReturnStatement) stmt).getExpression();
+                if (function != null && isSelfCall(expr, function)) {
+                    ((ReturnStatement) stmt).setTailCallOf(function, (FunctionCall) expr);
+                }
+            } else if (stmt instanceof ClassBlock) {
+                // class bodies are not in a function
+                resolveBlock((Block) stmt, null);
+            } else if (stmt instanceof Block) {
+                resolveBlock((Block) stmt, function);
+            }
+        }
+    }
+
+    private boolean isSelfCall(Expression expr, FunctionBlock function) {
+        if (expr instanceof FunctionCall) {
+            FunctionCall call = (FunctionCall) expr;
+            return call.getObject() == null && function.getName().equals(call.getFunctionName());
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,109 @@
+package rockstar.parser;
+
+import rockstar.expression.CompoundExpression;
+import rockstar.expression.Expression;
+import rockstar.expression.QualifierExpression;
+import rockstar.expression.VariableReference;
+import rockstar.runtime.FrameLayout;
+import rockstar.statement.Block;
+import rockstar.statement.ClassBlock;
+import rockstar.statement.FunctionBlock;
+import rockstar.statement.IterateStatement;
+import rockstar.statement.Statement;
+
+/**
+ * Link-time resolution of the frame-local variables, run after parsing.
+ *
+ * Rockstar functions are dynamically scoped: a function body sees the
+ * variables of its caller contexts, and a new variable may become global at
+ * runtime. Only the variables that are always defined in the function context
+ * itself (parameters and iteration variables) can be resolved statically;
+ * their references in the function body get a frame slot. All other
+ * references are looked up by name at runtime.
+ *
+ * @author Gabor
+ */
+public class VariableResolver {
+
+    /**
+     * Resolves all functions defined in the block, including nested functions
+     * and class methods
+     *
+     * @param block
+     */
+    public void resolve(Block block) {
+        resolveBlock(block, null);
+    }
+
+    private void resolveFunction(FunctionBlock function) {
+        FrameLayout layout = function.getFrameLayout();
+        // collect the frame-local variables first
+        function.getParameterRefs().forEach(ref -> layout.defineSlot(ref.getName()));
+        collectIterationVariables(function, layout);
+        // bind the references
+        function.getParameterRefs().forEach(ref -> resolveExpression(ref, layout));
+        resolveBlock(function, layout);
+    }
+
+    private void resolveBlock(Block block, FrameLayout layout) {
+        for (Statement stmt : block.getStatements()) {
+            if (stmt instanceof FunctionBlock) {
+                // nested functions have their own frames
+                resolveFunction((FunctionBlock) stmt);
+            } else if (stmt instanceof ClassBlock) {
+                // class bodies are executed in the object context
+                resolveBlock((Block) stmt, null);
+            } else {
+                if (layout != null) {
+                    stmt.getExpressions().forEach(expr -> resolveExpression(expr, layout));
+                }
+                if (stmt instanceof Block) {
+                    resolveBlock((Block) stmt, layout);
+                }
+            }
+        }
+    }
+
+    private void collectIterationVariables(Block block, FrameLayout layout) {
+        for (Statement stmt : block.getStatements()) {
+            if (stmt instanceof FunctionBlock || stmt instanceof ClassBlock) {
+                continue;
+            }
+            if (stmt instanceof IterateStatement) {
+                // iteration variables are always set as local variables
+                Expression asExpr = ((IterateStatement) stmt).getAsExpr();
+                if (asExpr instanceof VariableReference) {
+                    layout.defineSlot(((VariableReference) asExpr).getName());
+                } else if (asExpr instanceof QualifierExpression) {
+                    QualifierExpression qe = (QualifierExpression) asExpr;
+                    defineSlotFor(qe.getArrayBaseRef(), layout);
+                    defineSlotFor(qe.getArrayIndexRef(), layout);
+                }
+            }
+            if (stmt instanceof Block) {
+                collectIterationVariables((Block) stmt, layout);
+            }
+        }
+    }
+
+    private void defineSlotFor(Expression expr, FrameLayout layout) {
+        if (expr instanceof VariableReference) {
+            layout.defineSlot(((VariableReference) expr).getName());
+        }
+    }
+
+    private void resolveExpression(Expression expr, FrameLayout layout) {
+        if (expr instanceof CompoundExpression) {
+            ((CompoundExpression) expr).getParameters()
+                    .forEach(param -> resolveExpression(param, layout));
+        } else if (expr != null && expr.getClass() == VariableReference.class) {
+            // "it" and "self" references are resolved at runtime
+            VariableReference vref = (VariableReference) expr;
+            int slot = layout.getSlot(vref.getName());
+            if (slot >= 0) {
+                vref.resolve(layout, slot);
+            }
+        }
+    }
+
+}
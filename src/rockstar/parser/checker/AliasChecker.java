@@ -19,6 +19,11 @@ public class AliasChecker extends Checker<List<String>, List<String>, Object> {
         new ParamList("for", "me", textAt(1), "means", textAt(2)),
         new ParamList(textAt(1), "means", textAt(2))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
@@ -21,6 +21,11 @@ public class AssignmentChecker extends Checker<Expression, Expression, Object> {
         new ParamList("Put", expressionAt(1), "in", at(2, PlaceholderType.VARIABLE_OR_QUALIFIER)),
         new ParamList(at(2, PlaceholderType.VARIABLE_OR_QUALIFIER), "thinks", expressionAt(1))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
@@ -22,6 +22,11 @@ public class BreakItDownChecker extends Checker<Object, Object, Object> {
         new ParamList(BREAK_IT_DOWN),
         new ParamList("Break")};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
@@ -19,6 +19,11 @@ public class BuildUpChecker extends Checker<VariableReference, List<String>, Obj
     private static final ParamList[] PARAM_LIST = new ParamList[]{
         new ParamList("Build", variableAt(1), "up", textAt(2).opt())};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
@@ -20,6 +20,11 @@ public class CastChecker extends Checker<MutationExpression, Object, Object> {
         new ParamList("burn", mutationExpressionAt(1))
     };
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
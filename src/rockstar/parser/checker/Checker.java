@@ -5,7 +5,6 @@
  */
 package rockstar.parser.checker;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 import rockstar.expression.ConstantExpression;
@@ -64,6 +63,16 @@ public abstract class Checker<T1, T2, T3> {
 
     public abstract Statement check();
 
+    /**
+     * The statement patterns of the checker, used by the dispatch index of
+     * the StatementFactory. A checker without patterns is tried for all lines.
+     *
+     * @return the patterns, or null if the checker has its own logic
+     */
+    public ParamList[] getParamLists() {
+        return null;
+    }
+
     /**
      * Matches a statement pattern, e.g. [1, "this", 3, "that" "other" 2]
      * Numbers represent placeholders, parsedResult[n] will be set to the matched
@@ -72,7 +81,8 @@ public abstract class Checker<T1, T2, T3> {
      * @param params
      * @return
      */
-    public boolean match(Object... params) {
+    public boolean match(ParamList paramList) {
+        Object[] params = paramList.getParams();
         matchCounter++;
         List<String> tokens = line.getTokens();
         // clear previous result
@@ -82,23 +92,19 @@ public abstract class Checker<T1, T2, T3> {
         // match cycle
         lastPos = -1;
         lastPH = null;
-        for (Object param : params) {
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
             if (param instanceof Placeholder) {
                 lastPH = ((Placeholder) param);
             } else {
-                List<String> needle = null;
-                if (param instanceof List) {
-                    needle = (List<String>) param;
-                } else if (param instanceof String) {
-                    needle = Arrays.asList((String) param);
-                }
+                List<String> needle = paramList.getKeywords(i);
                 // set nextPosStart and nextPosEnd
                 findNext(needle, lastPos, tokens);
 
                 if (nextPosEnd > lastPos) {
                     if (lastPH != null) {
                         // save the sublist as the numbered result
-                        boolean success = saveResultPosition(lastPH, tokens.subList(lastPos + 1, nextPosStart));
+                        boolean success = saveResultPosition(lastPH, lastPos + 1, nextPosStart);
                         if (!success) {
                             return false;
                         }
@@ -116,7 +122,7 @@ public abstract class Checker<T1, T2, T3> {
         }
         if (lastPH != null) {
             // save the tail as the numbered result
-            boolean success = saveResultPosition(lastPH, tokens.subList(lastPos + 1, tokens.size()));
+            boolean success = saveResultPosition(lastPH, lastPos + 1, tokens.size());
             if (!success) {
                 return false;
             }
@@ -127,7 +133,8 @@ public abstract class Checker<T1, T2, T3> {
         return true;
     }
 
-    private boolean saveResultPosition(Placeholder ph, List<String> posTokens) {
+    private boolean saveResultPosition(Placeholder ph, int from, int to) {
+        List<String> posTokens = line.getTokens().subList(from, to);
         // if there are no token
         if (posTokens.isEmpty()) {
             // we only accept if it is optional
@@ -167,10 +174,13 @@ public abstract class Checker<T1, T2, T3> {
             Expression defaultExpr = ph.getDefaultExprPos() == null ? null : (Expression) parsedResult[ph.getDefaultExprPos()];
 
             
+            // the same range is parsed only once for all checkers of the line
             if (ph.getType() == MUTATION_EXPRESSION) {
-                e = ExpressionFactory.tryMutationExpressionFor(posTokens, line, block);
+                e = line.parseOnce(from, to, MUTATION_EXPRESSION, null,
+                        () -> ExpressionFactory.tryMutationExpressionFor(posTokens, line, block));
             } else if (ph.getType() != TEXT) {
-                e = ExpressionFactory.tryExpressionFor(posTokens, line, defaultExpr, block);
+                e = line.parseOnce(from, to, EXPRESSION, defaultExpr,
+                        () -> ExpressionFactory.tryExpressionFor(posTokens, line, defaultExpr, block));
             }
 
             switch (ph.getType()) {
@@ -238,7 +248,7 @@ public abstract class Checker<T1, T2, T3> {
     protected Statement check(ParamList[] possibleParams, Function<ParamList, Statement> validator) {
         Statement stmt;
         for (ParamList params : possibleParams) {
-            if (match(params.getParams())) {
+            if (match(params)) {
                 stmt = validator.apply(params);
                 if (stmt != null) {
                     return stmt;
@@ -264,10 +274,10 @@ public abstract class Checker<T1, T2, T3> {
         Object[] origParams = params.getParams();
         this.extParams = new Object[origParams.length];
         for (int i = 0; i < origParams.length; i++) {
-            Object param = origParams[i];
-            extParams[i] = (param instanceof List)
-                    ? block.getAliasesFor((List<String>) param)
-                    : param;
+            List<String> keywords = params.getKeywords(i);
+            extParams[i] = (keywords != null)
+                    ? block.getAliasesFor(keywords)
+                    : origParams[i];
         }
         return nextMatch();
     }
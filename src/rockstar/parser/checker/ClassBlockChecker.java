@@ -27,6 +27,11 @@ public class ClassBlockChecker extends Checker<VariableReference, Expression, Ob
         new ParamList(variableAt(1), LOOK_LIKE, at(2, PlaceholderType.LITERAL_OR_VARIABLE)),
         new ParamList(variableAt(1), LOOKS_LIKE, at(2, PlaceholderType.LITERAL_OR_VARIABLE))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
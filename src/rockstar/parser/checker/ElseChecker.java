@@ -18,6 +18,11 @@ public class ElseChecker extends Checker<Object, Object, Object> {
         new ParamList("Else"),
         new ParamList("Otherwise")};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
@@ -20,6 +20,11 @@ public class ExpressionStatementChecker extends Checker<Expression, Object, Obje
     private static final ParamList[] PARAM_LIST = new ParamList[]{
         new ParamList(expressionAt(1))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
@@ -23,6 +23,11 @@ public class FunctionDefChecker extends Checker<VariableReference, Expression, O
         new ParamList(variableAt(1), "takes", expressionAt(2)),
         new ParamList(variableAt(1), "wants", expressionAt(2))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
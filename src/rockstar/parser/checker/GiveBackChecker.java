@@ -26,6 +26,11 @@ public class GiveBackChecker extends Checker<Expression, Object, Object> {
         new ParamList(SEND_BACK, expressionAt(1)),
         new ParamList("send", expressionAt(1), "back")};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
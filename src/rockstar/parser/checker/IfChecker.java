@@ -19,6 +19,11 @@ public class IfChecker extends Checker<Expression, Object, Object> {
         new ParamList("If", expressionAt(1)),
         new ParamList("When", expressionAt(1))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
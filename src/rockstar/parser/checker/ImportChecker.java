@@ -26,6 +26,11 @@ public class ImportChecker extends Checker<Expression, Expression, Object> {
         new ParamList("off", expressionAt(1), "play", expressionAt(2)),
         new ParamList("play", expressionAt(2))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
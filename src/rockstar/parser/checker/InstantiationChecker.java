@@ -37,6 +37,11 @@ public class InstantiationChecker extends Checker<VariableReference, VariableRef
         new ParamList(variableAt(1), WOULD_BE, variableAt(2), "taking", expressionAt(3)),
         new ParamList(variableAt(1), WOULD_BE, variableAt(2))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
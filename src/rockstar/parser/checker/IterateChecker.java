@@ -19,6 +19,11 @@ public class IterateChecker extends Checker<Expression, Expression, Object> {
         new ParamList("While", expressionAt(1), "as", at(2, PlaceholderType.VARIABLE_OR_QUALIFIER)),
         new ParamList("While", expressionAt(1), "alike", at(2, PlaceholderType.VARIABLE_OR_QUALIFIER))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
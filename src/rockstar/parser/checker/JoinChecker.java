@@ -19,6 +19,11 @@ public class JoinChecker extends Checker<MutationExpression, Object, Object> {
         new ParamList("join", mutationExpressionAt(1)),
         new ParamList("unite", mutationExpressionAt(1))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
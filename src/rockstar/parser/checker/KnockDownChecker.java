@@ -19,6 +19,11 @@ public class KnockDownChecker extends Checker<VariableReference, List<String>, O
     private static final ParamList[] PARAM_LIST = new ParamList[]{
         new ParamList("Knock", variableAt(1), "down", textAt(2).opt())};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
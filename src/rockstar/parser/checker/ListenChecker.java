@@ -23,6 +23,11 @@ public class ListenChecker extends Checker<VariableReference, Object, Object> {
         new ParamList("Listen"),
         new ParamList(LISTEN_TO, variableAt(1))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
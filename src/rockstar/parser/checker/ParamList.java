@@ -7,9 +7,13 @@ package rockstar.parser.checker;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  *
@@ -28,14 +32,68 @@ public class ParamList {
 
     private Object[] params;
 
+    // the keyword list of each param, null for placeholders
+    private final List<List<String>> keywordLists = new ArrayList<>();
+
+    // the first keyword, if the pattern starts with a keyword (lower case)
+    private String leadingToken;
+    // all keyword tokens of the pattern (lower case)
+    private final Set<String> anchorTokens = new HashSet<>();
+
     public ParamList(Object... orig) {
         params = new Object[orig.length];
         for (int i = 0; i < orig.length; i++) {
             Object value = orig[i];
-            params[i] = (value != null && value instanceof String)
-                    ? listCache.computeIfAbsent((String) value, s -> Arrays.asList(s))
-                    : value;
+            List<String> keywords = null;
+            if (value instanceof String) {
+                keywords = listCache.computeIfAbsent((String) value, s -> Arrays.asList(s));
+            } else if (value instanceof List) {
+                keywords = ((List<?>) value).stream()
+                        .map(Object::toString)
+                        .collect(Collectors.toList());
+            }
+            params[i] = (keywords != null) ? keywords : value;
+            keywordLists.add(keywords);
+            if (keywords != null) {
+                if (i == 0) {
+                    leadingToken = keywords.get(0).toLowerCase();
+                }
+                keywords.forEach(keyword -> anchorTokens.add(keyword.toLowerCase()));
+            }
         }
     }
 
+    /**
+     * @param i the index of the param
+     * @return the keywords of the param, or null if it is not a keyword param
+     */
+    public List<String> getKeywords(int i) {
+        return keywordLists.get(i);
+    }
+
+    /**
+     * @return the first keyword in lower case, or null if the pattern starts
+     * with a placeholder
+     */
+    public String getLeadingToken() {
+        return leadingToken;
+    }
+
+    /**
+     * Checks if all the keywords of the pattern are present in a line. It is
+     * a necessary condition of a match, without aliases.
+     *
+     * @param lcTokens the tokens of the line in lower case
+     * @return
+     */
+    public boolean hasAnchors(Collection<String> lcTokens) {
+        return lcTokens.containsAll(anchorTokens);
+    }
+
+    public static ParamList[] concat(ParamList[] first, ParamList[] second) {
+        ParamList[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
 }
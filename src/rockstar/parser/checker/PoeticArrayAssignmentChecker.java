@@ -33,6 +33,11 @@ public class PoeticArrayAssignmentChecker extends Checker<VariableReference, Lis
         new ParamList(variableAt(1), "hold", textAt(2)),
         new ParamList(variableAt(1), "holds", textAt(2))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
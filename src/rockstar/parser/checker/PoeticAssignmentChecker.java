@@ -26,6 +26,11 @@ public class PoeticAssignmentChecker extends Checker<VariableReference, Constant
         new ParamList(variableAt(1), "are", poeticLiteralAt(2)),
         new ParamList(variableAt(1), "were", poeticLiteralAt(2))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
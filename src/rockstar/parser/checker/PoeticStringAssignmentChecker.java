@@ -20,6 +20,11 @@ public class PoeticStringAssignmentChecker extends Checker<VariableReference, Li
     private static final ParamList[] PARAM_LIST = new ParamList[]{
         new ParamList(variableAt(1), "says", textAt(2).opt())};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
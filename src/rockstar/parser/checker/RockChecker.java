@@ -27,6 +27,13 @@ public class RockChecker extends Checker<VariableReference, Expression, Object>
         new ParamList("Rock", at(1, PlaceholderType.VARIABLE_OR_LIST)),
         new ParamList("Push", at(1, PlaceholderType.VARIABLE_OR_LIST))};
 
+    private static final ParamList[] ALL_PARAM_LISTS = ParamList.concat(PARAM_LIST, PARAM_LIST2);
+
+    @Override
+    public ParamList[] getParamLists() {
+        return ALL_PARAM_LISTS;
+    }
+
     @Override
     public Statement check() {
         Statement stmt = check(PARAM_LIST, this::validate);
@@ -50,8 +57,10 @@ public class RockChecker extends Checker<VariableReference, Expression, Object>
         } else if (varExpr instanceof ListExpression) {
             ListExpression listExpr = (ListExpression) varExpr;
             // the first item should be treated as a variable reference, the remaining will be the list
-            varExpr = listExpr.getParameters().remove(0);
+            varExpr = listExpr.getParameters().get(0);
             if (varExpr instanceof VariableReference) {
+                // the parsed list may be shared by other patterns, changed only on success
+                listExpr.getParameters().remove(0);
                 return new RockStatement((VariableReference) varExpr, listExpr);
             }
         }
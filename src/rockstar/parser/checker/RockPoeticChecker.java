@@ -20,6 +20,11 @@ public class RockPoeticChecker extends Checker<VariableReference, ConstantExpres
         new ParamList("Rock", variableAt(1), "like", poeticLiteralAt(2)),
         new ParamList("Push", variableAt(1), "like", poeticLiteralAt(2))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
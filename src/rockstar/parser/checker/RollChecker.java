@@ -25,6 +25,13 @@ public class RollChecker extends Checker<VariableReference, VariableReference, O
         new ParamList("Pop", variableAt(2)),
         new ParamList("Pull", "from", variableAt(2))};
 
+    private static final ParamList[] ALL_PARAM_LISTS = ParamList.concat(PARAM_LIST, PARAM_LIST2);
+
+    @Override
+    public ParamList[] getParamLists() {
+        return ALL_PARAM_LISTS;
+    }
+
     @Override
     public Statement check() {
         Statement stmt = check(PARAM_LIST, this::validate);
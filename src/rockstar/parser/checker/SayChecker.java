@@ -21,6 +21,11 @@ public class SayChecker extends Checker<Expression, Object, Object> {
         new ParamList("Whisper", expressionAt(1)),
         new ParamList("Scream", expressionAt(1))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
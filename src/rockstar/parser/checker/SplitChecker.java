@@ -20,6 +20,11 @@ public class SplitChecker extends Checker<MutationExpression, Object, Object> {
         new ParamList("cut", mutationExpressionAt(1)),
         new ParamList("shatter", mutationExpressionAt(1))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
@@ -22,6 +22,11 @@ public class TakeItToTheTopChecker extends Checker<Object, Object, Object> {
         new ParamList(TAKE_IT_TO_THE_TOP),
         new ParamList("Continue")};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
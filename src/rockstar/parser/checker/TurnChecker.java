@@ -33,6 +33,11 @@ public class TurnChecker extends Checker<VariableReference, Object, Object> {
         Direction.ROUND, Direction.ROUND
     };
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
@@ -18,6 +18,11 @@ public class WhileChecker extends Checker<Expression, Object, Object> {
     private static final ParamList[] PARAM_LIST = new ParamList[]{
         new ParamList("While", expressionAt(1))};
 
+    @Override
+    public ParamList[] getParamLists() {
+        return PARAM_LIST;
+    }
+
     @Override
     public Statement check() {
         return check(PARAM_LIST, this::validate);
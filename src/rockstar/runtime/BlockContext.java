@@ -5,7 +5,9 @@
  */
 package rockstar.runtime;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
@@ -26,15 +28,28 @@ public class BlockContext {
     private final FileContext fileCtx;
     private final RockObject thisObjectCtx;
     
+    // depth of the context chain, incremented by each function call
     private final int level;
     
-    protected final Map<String, Value> vars = new HashMap<>();
-    protected final Map<String, FunctionBlock> funcs = new HashMap<>();
+    // allocated on the first definition, most function contexts have neither
+    // variables by name nor local functions
+    private Map<String, Value> vars = null;
+    private Map<String, FunctionBlock> funcs = null;
+
+    // frame-local variables of a function context, indexed by the layout slots
+    private final FrameLayout layout;
+    private final Value[] frame;
     
     private final Environment env;
+
+    // the listener of the instrumented mode, null in uninstrumented mode
+    private final BlockContextListener listener;
     
     private final String ctxName;
 
+    // true if this context or a non-root parent context may contain function definitions
+    private boolean localFunctions;
+
     /**
      * Root context initialization
      *
@@ -42,12 +57,16 @@ public class BlockContext {
      */
     protected BlockContext(Environment env) {
         this.env = env;
+        this.listener = env.getListener();
         this.parent = null;
         this.rootCtx = (ProgramContext) this;
         this.thisObjectCtx = null;
         this.level = 0;
         this.ctxName = "RockStar";
         this.fileCtx = null;
+        this.layout = null;
+        this.frame = null;
+        this.localFunctions = false;
     }
 
     /**
@@ -69,25 +88,64 @@ public class BlockContext {
      * @param increaseLevel
      */
     public BlockContext(BlockContext parent, String ctxName, boolean increaseLevel) {
+        this(parent, ctxName, increaseLevel, null);
+    }
+
+    /**
+     * Context initialization for function calls with frame-local variables
+     *
+     * @param parent
+     * @param ctxName name of the context
+     * @param layout the frame layout of the function
+     */
+    public BlockContext(BlockContext parent, String ctxName, FrameLayout layout) {
+        this(parent, ctxName, true, layout);
+    }
+
+    private BlockContext(BlockContext parent, String ctxName, boolean increaseLevel, FrameLayout layout) {
         this.env = parent.env;
+        this.listener = parent.listener;
         this.parent = parent;
         this.rootCtx = parent.rootCtx;
         this.fileCtx = (this instanceof FileContext) ? (FileContext) this : parent.fileCtx;
         this.thisObjectCtx = (this instanceof RockObject) ? (RockObject) this : parent.thisObjectCtx;
         this.level = parent.level + (increaseLevel ? 1 : 0);
         this.ctxName = ctxName;
+        boolean hasFrame = (layout != null) && (layout.size() > 0);
+        this.layout = hasFrame ? layout : null;
+        this.frame = hasFrame ? new Value[layout.size()] : null;
+        this.localFunctions = (this instanceof RockObject)
+                || (parent.parent != null && parent.localFunctions);
     }
     
     public Environment getEnv() {
         return env;
     }
     
+    /**
+     * The variables defined in this context. For function contexts the
+     * frame-local variables are also included, in a snapshot map.
+     *
+     * @return
+     */
     public Map<String, Value> getVariables() {
-        return vars;
+        if (frame == null) {
+            return (vars == null) ? Collections.emptyMap() : vars;
+        }
+        Map<String, Value> allVars = new LinkedHashMap<>();
+        for (int slot = 0; slot < frame.length; slot++) {
+            if (frame[slot] != null) {
+                allVars.put(layout.getName(slot), frame[slot]);
+            }
+        }
+        if (vars != null) {
+            allVars.putAll(vars);
+        }
+        return allVars;
     }
     
     public Map<String, FunctionBlock> getFunctions() {
-        return funcs;
+        return (funcs == null) ? Collections.emptyMap() : funcs;
     }
     
     public String getName() {
@@ -129,6 +187,15 @@ public class BlockContext {
         return level;
     }
 
+    /**
+     * The name of the context, without the object and level qualifiers
+     *
+     * @return
+     */
+    String getCtxName() {
+        return ctxName;
+    }
+
     // last assigned variable name in this context
     private VariableReference lastVariableRef = null;
     
@@ -166,28 +233,23 @@ public class BlockContext {
      * @param value
      */
     private void doSetVariable(VariableReference vref, Value value) {
-        // determine if we are in object context
-        // find the defining RockObject within thisObjectCtx, if present
-        BlockContext objCtx = null;
-        if (this.thisObjectCtx != null) {
-            int thisId = thisObjectCtx.getObjId();
-            objCtx = getContextFor(thisObjectCtx,
-                    ctx -> (ctx instanceof RockObject)
-                    && (((RockObject) ctx).getObjId() == thisId)
-                    && (ctx.vars.containsKey(vref.getName()))
-            );
+        // we can set either local or global variables
+        if (getLocalValue(vref) != null) {
+            // overwrite local variable
+            setLocalVariable(vref, value);
+            return;
         }
         
         String variableName = vref.getName();
 
-        // we can set either local or global variables
-        if (this.vars.containsKey(variableName)) {
-            // overwrite local variable
-            setLocalVariable(vref, value);
-        } else if (objCtx != null) {
+        // determine if we are in object context
+        // find the defining RockObject within thisObjectCtx, if present
+        BlockContext objCtx = (this.thisObjectCtx == null) ? null : getObjectContextFor(variableName);
+
+        if (objCtx != null) {
             // overwrite object member variable
             objCtx.setLocalVariable(vref, value);
-        } else if (rootCtx.vars.containsKey(variableName)) {
+        } else if (rootCtx.hasVariableName(variableName)) {
             // overwrite global variable
             rootCtx.setLocalVariable(vref, value);
         } else {
@@ -196,6 +258,38 @@ public class BlockContext {
         }
     }
 
+    /**
+     * Find the object level within thisObjectCtx that defines the given
+     * member variable
+     *
+     * @param variableName
+     * @return
+     */
+    private BlockContext getObjectContextFor(String variableName) {
+        int thisId = thisObjectCtx.getObjId();
+        BlockContext ctx = thisObjectCtx;
+        while (ctx != null) {
+            if ((ctx instanceof RockObject)
+                    && (((RockObject) ctx).getObjId() == thisId)
+                    && ctx.hasVariableName(variableName)) {
+                return ctx;
+            }
+            ctx = ctx.getParent();
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a variable is defined by name in this context (not in a frame
+     * slot)
+     *
+     * @param variableName
+     * @return
+     */
+    protected boolean hasVariableName(String variableName) {
+        return vars != null && vars.containsKey(variableName);
+    }
+
     /**
      * Find a context in the hierarchy for the given condition
      *
@@ -219,7 +313,54 @@ public class BlockContext {
      * @param value
      */
     public void setLocalVariable(VariableReference vref, Value value) {
-        vars.put(vref.getName(), value);
+        int slot = getSlot(vref);
+        if (slot >= 0) {
+            frame[slot] = value;
+        } else {
+            if (vars == null) {
+                vars = new HashMap<>();
+            }
+            vars.put(vref.getName(), value);
+        }
+    }
+
+    /**
+     * Find the frame slot of a variable in this context. Variable references
+     * resolved for the same layout already know their slot, and remember the
+     * last layout they are missing from.
+     *
+     * @param vref
+     * @return the slot index, or -1 if the variable is not frame-local here
+     */
+    private int getSlot(VariableReference vref) {
+        if (layout == null) {
+            return -1;
+        }
+        if (vref.getFrameLayout() == layout) {
+            return vref.getSlot();
+        }
+        if (vref.isOutsideOf(layout)) {
+            return -1;
+        }
+        int slot = layout.getSlot(vref.getName());
+        if (slot < 0) {
+            vref.setOutsideOf(layout);
+        }
+        return slot;
+    }
+
+    /**
+     * Get a variable value defined in this context only
+     *
+     * @param vref
+     * @return the value, or null if not defined in this context
+     */
+    private Value getLocalValue(VariableReference vref) {
+        int slot = getSlot(vref);
+        if (slot >= 0) {
+            return frame[slot];
+        }
+        return (vars == null) ? null : vars.get(vref.getName());
     }
 
     /**
@@ -230,11 +371,11 @@ public class BlockContext {
      */
     public Value getVariableValue(VariableReference vref) {
         // find the context where the variable was defined 
-        Value v = null;
-        String vname = vref.getEffectiveVref(this).getName();
-        BlockContext ctx = this;
+        VariableReference effectiveVref = vref.getEffectiveVref(this);
+        Value v = getLocalValue(effectiveVref);
+        BlockContext ctx = getParent();
         while (v == null && ctx != null) {
-            v = ctx.vars.get(vname);
+            v = ctx.getLocalValue(effectiveVref);
             ctx = ctx.getParent();
         }
         
@@ -242,15 +383,34 @@ public class BlockContext {
     }
     
     public void defineFunction(String name, FunctionBlock function) {
+        if (funcs == null) {
+            funcs = new HashMap<>();
+        }
         funcs.put(name, function);
+        if (parent == null) {
+            rootCtx.nextFunctionEpoch();
+        } else {
+            localFunctions = true;
+        }
+    }
+
+    /**
+     * Checks if functions can be defined in the context chain below the root
+     * context (in nested functions or objects). If not, all functions are
+     * retrieved from the root context.
+     *
+     * @return
+     */
+    public boolean hasLocalFunctions() {
+        return localFunctions;
     }
     
     public FunctionBlock retrieveLocalFunction(String name) {
-        return funcs.get(name);
+        return (funcs == null) ? null : funcs.get(name);
     }
     
     public BlockContext getContextForFunction(String name) {
-        return getContextFor(this, ctx -> ctx.funcs.containsKey(name));
+        return getContextFor(this, ctx -> ctx.funcs != null && ctx.funcs.containsKey(name));
     }
     
     public QualifiedClassName findClass(String name) {
@@ -264,21 +424,42 @@ public class BlockContext {
         return defaultQcn;
     }
     
+    /**
+     * Checks if the listener hooks are active. The listener is taken from the
+     * environment when the root context is created, so the uninstrumented
+     * mode (without listener) does not pay for the hooks.
+     *
+     * @return
+     */
+    public boolean isInstrumented() {
+        return listener != null;
+    }
+
     public void beforeStatement(Statement stmt) {
-        if (env.getListener() != null) {
-            env.getListener().beforeStatement(this, stmt);
+        if (listener != null) {
+            listener.beforeStatement(this, stmt);
         }
     }
     
+    /**
+     * The expression hooks are kept in the expression nodes, on the
+     * uninstrumented path they are a null check of a final field. A separate
+     * uninstrumented evaluation would need a second evaluate method in each
+     * node, and wrapping the nodes into listener decorators breaks the type
+     * checks on the child nodes (e.g. ListExpression operands, qualifiers),
+     * while a build without any expression hooks ran the same speed.
+     *
+     * @param exp
+     */
     public void beforeExpression(Expression exp) {
-        if (env.getListener() != null) {
-            env.getListener().beforeExpression(this, exp);
+        if (listener != null) {
+            listener.beforeExpression(this, exp);
         }
     }
     
     public Value afterExpression(Expression exp, Value v) {
-        if (env.getListener() != null) {
-            env.getListener().afterExpression(this, exp, v);
+        if (listener != null) {
+            listener.afterExpression(this, exp, v);
         }
         return v;
     }
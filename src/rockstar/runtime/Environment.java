@@ -25,10 +25,16 @@ public class Environment {
 
     private BlockContextListener listener = null;
 
+    // maximum depth of the context chain (function calls), unlimited by default
+    private final int maxCallDepth;
+
     public Environment(InputStream input, PrintStream output, PrintStream error, Map<String, String> env) {
         this.output = output;
         this.error = error;
         this.env = env;
+        // the value is checked when the options are parsed
+        String maxDepth = env.get("--max-depth");
+        this.maxCallDepth = (maxDepth == null) ? Integer.MAX_VALUE : Integer.parseInt(maxDepth);
         InputStreamReader rdr = null;
         try {
             rdr = new InputStreamReader(input, Utils.UTF8);
@@ -60,6 +66,10 @@ public class Environment {
     public BlockContextListener getListener() {
         return listener;
     }
+
+    public int getMaxCallDepth() {
+        return maxCallDepth;
+    }
     
     
 
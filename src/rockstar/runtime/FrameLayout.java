@@ -0,0 +1,64 @@
+package rockstar.runtime;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Slot assignment of the frame-local variables of a function. Frame-local
+ * variables (parameters and iteration variables) are always set in the
+ * function context, so they can be stored in an array instead of the variable
+ * map.
+ *
+ * @author Gabor
+ */
+public class FrameLayout implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Assigns a slot to a variable name, if not assigned yet
+     *
+     * @param name
+     * @return the slot index
+     */
+    public int defineSlot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = names.size();
+            slots.put(name, slot);
+            names.add(name);
+        }
+        return slot;
+    }
+
+    /**
+     * Finds the slot of a variable name
+     *
+     * @param name
+     * @return the slot index, or -1 if the variable is not frame-local
+     */
+    public int getSlot(String name) {
+        Integer slot = slots.get(name);
+        return (slot == null) ? -1 : slot;
+    }
+
+    public String getName(int slot) {
+        return names.get(slot);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    @Override
+    public String toString() {
+        return names.toString();
+    }
+
+}
@@ -18,6 +18,16 @@ public class LoggerListener implements BlockContextListener {
     private boolean logStmt = false;
     private boolean logExpr = false;
 
+    /**
+     * Checks if the options require execution logging
+     *
+     * @param options
+     * @return
+     */
+    public static boolean isLoggingRequested(Map<String, String> options) {
+        return options.containsKey("--exprlog") || options.containsKey("--runlog");
+    }
+
     public LoggerListener(Map<String, String> options) {
         logExpr = options.containsKey("--exprlog");
         // --exprlog implies --runlog, too
@@ -5,6 +5,7 @@
  */
 package rockstar.runtime;
 
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
@@ -19,7 +20,9 @@ import rockstar.expression.VariableReference;
  *
  * @author Gabor
  */
-public class PackagePath {
+public class PackagePath implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     public static final PackagePath DEFAULT = new PackagePath(new LinkedList<>());
 
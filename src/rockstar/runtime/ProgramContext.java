@@ -14,7 +14,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import rockstar.parser.ParseException;
-import rockstar.parser.Parser;
+import rockstar.parser.ProgramCache;
 import rockstar.statement.ClassBlock;
 import rockstar.statement.Program;
 
@@ -27,10 +27,27 @@ public class ProgramContext extends BlockContext {
     protected final Map<QualifiedClassName, ClassBlock> classes = new HashMap<>();
     private final Set<QualifiedClassName> beingLoaded = new HashSet<>();
 
+    // incremented on each function definition, to invalidate the call site caches
+    private int functionEpoch = 0;
+
     protected ProgramContext(Environment env) {
         super(env);
     }
 
+    /**
+     * The function epoch changes on each function definition in this root
+     * context, so the cached function lookups must be repeated.
+     *
+     * @return
+     */
+    public int getFunctionEpoch() {
+        return functionEpoch;
+    }
+
+    void nextFunctionEpoch() {
+        functionEpoch++;
+    }
+
     public void defineClass(QualifiedClassName qcn, ClassBlock classBlock) {
         this.classes.put(qcn, classBlock);
     }
@@ -86,8 +103,10 @@ public class ProgramContext extends BlockContext {
     }
 
     private void loadClass(String libRoot, QualifiedClassName qcn) throws FileNotFoundException {
-        final String filePath = libRoot + "/" + qcn.getFormattedFilename();
-        loadClass(new FileInputStream(new File(filePath)), qcn.getName());
+        final File file = new File(libRoot + "/" + qcn.getFormattedFilename());
+        InputStream is = new FileInputStream(file);
+        File cacheFile = ProgramCache.getCacheFile(file);
+        loadClass(is, cacheFile.isFile() ? new FileInputStream(cacheFile) : null, qcn.getName());
     }
 
     private void loadClass(ClassLoader cl, QualifiedClassName qcn) throws FileNotFoundException {
@@ -96,12 +115,13 @@ public class ProgramContext extends BlockContext {
         if (is == null) {
             throw new FileNotFoundException();
         }
-        loadClass(is, qcn.getName());
+        loadClass(is, cl.getResourceAsStream(ProgramCache.getCachePath(filePath)), qcn.getName());
     }
 
-    private void loadClass(InputStream is, String filename) throws FileNotFoundException {
+    private void loadClass(InputStream is, InputStream cached, String filename) {
         try {
-            Program prg = new Parser(is, filename).parse();
+            // precompiled classes are loaded from the cache file
+            Program prg = ProgramCache.parse(is, filename, cached);
             FileContext fileCtx = new FileContext(this, filename);
             prg.execute(fileCtx);
         } catch (ParseException pex) {
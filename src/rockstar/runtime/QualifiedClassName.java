@@ -5,14 +5,17 @@
  */
 package rockstar.runtime;
 
+import java.io.Serializable;
 import java.util.Objects;
 
 /**
  *
  * @author Gabor
  */
-public class QualifiedClassName {
+public class QualifiedClassName implements Serializable {
     
+    private static final long serialVersionUID = 1L;
+
     private final PackagePath path;
     private final String name;
 
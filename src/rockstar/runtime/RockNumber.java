@@ -1,49 +1,102 @@
 package rockstar.runtime;
 
+import java.io.Serializable;
+
 /**
  * RockNumber is the number abstraction layer for Rockstar
  *
  * @author Gabor
  */
-public abstract class RockNumber {
+public abstract class RockNumber implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static boolean IS_DEC64 = false;
     
     // an instance to delegate the static methods
     private static RockNumber instance = RockNumberDouble.ZERO;
+
+    // largest whole number that is exact in the current number type
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static long maxExact = MAX_EXACT_DOUBLE;
     
+    public static boolean isDec64() {
+        return IS_DEC64;
+    }
+
     public static void setDec64(boolean isDec64) {
         if (IS_DEC64 != isDec64) {
             IS_DEC64 = isDec64;
             instance = isDec64 ? RockNumberDec64.ZERO : RockNumberDouble.ZERO;
+            maxExact = isDec64 ? RockNumberDec64.MAX_EXACT : MAX_EXACT_DOUBLE;
         }
     }
 
     protected abstract RockNumber getZERO();
     protected abstract RockNumber getONE();
 
+    // whole numbers are exact in both number types
     public static RockNumber ZERO() {
-        return instance.getZERO();
+        return RockNumberLong.ZERO;
     }
     public static RockNumber ONE() {
-        return instance.getONE();
+        return RockNumberLong.ONE;
     }
     
     protected abstract RockNumber doParse(String stringValue, int radix);
     
     public static RockNumber parse(String stringValue) {
-        return instance.doParse(stringValue, 10);
+        return parseWithRadix(stringValue, 10);
     }
 
     public static RockNumber parseWithRadix(String stringValue, RockNumber radix) {
-        int r = radix.asInt();
-        return instance.doParse(stringValue, r);
+        return parseWithRadix(stringValue, radix.asInt());
+    }
+
+    private static RockNumber parseWithRadix(String stringValue, int radix) {
+        if (isIntegral(stringValue, radix)) {
+            try {
+                return getValueFromLong(Long.parseLong(stringValue, radix));
+            } catch (NumberFormatException nfe) {
+                // too large for a long
+            }
+        }
+        return instance.doParse(stringValue, radix);
     }
 
-    protected abstract RockNumber getValue(Double dblValue);
+    private static boolean isIntegral(String stringValue, int radix) {
+        int len = stringValue.length();
+        int start = (len > 0 && stringValue.charAt(0) == '-') ? 1 : 0;
+        if (start == len || radix < Character.MIN_RADIX || radix > Character.MAX_RADIX) {
+            return false;
+        }
+        for (int i = start; i < len; i++) {
+            if (Character.digit(stringValue.charAt(i), radix) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected abstract RockNumber getValue(double dblValue);
     protected abstract RockNumber getValue(long l);
     
     public static RockNumber getValueFromLong(long l) {
+        if (l <= maxExact && l >= -maxExact) {
+            return RockNumberLong.of(l);
+        }
+        // the same rounding as the number type would do
+        return promote(l);
+    }
+
+    /**
+     * A whole number in the current number type, for the results that are not
+     * exact whole numbers
+     *
+     * @param l
+     * @return
+     */
+    static RockNumber promote(long l) {
         return instance.getValue(l);
     }
     
@@ -14,6 +14,8 @@ import java.util.Map;
  */
 public class RockNumberDec64 extends RockNumber {
 
+    private static final long serialVersionUID = 1L;
+
     // caches for zero exponent and one mantissa
     private static final Map<Long, RockNumberDec64> CACHE_ZERO_EXPONENT = new HashMap<>();
     private static final Map<Integer, RockNumberDec64> CACHE_ONE_MANTISSA = new HashMap<>();
@@ -52,7 +54,14 @@ public class RockNumberDec64 extends RockNumber {
     
     @Override
     public RockNumberDec64 getValue(long l) {
-        return getFromCache(l, 0);
+        // large values are truncated to the coefficient range of the parsed
+        // numbers, to leave room for the arithmetic
+        int e = 0;
+        while (l / 10 >= MAX_PARSED_MANTISSA || l / 10 <= -MAX_PARSED_MANTISSA) {
+            l /= 10;
+            e++;
+        }
+        return getFromCache(l, e);
     }
 
 //    public static RockNumberDec64 getValue(long digits, int fractionCount) {
@@ -61,6 +70,8 @@ public class RockNumberDec64 extends RockNumber {
 
     private static final long MAX_VALUE = 0x7fffffffffffffffL;
     private static final long MAX_PARSED_MANTISSA = MAX_VALUE / 10;
+    // largest whole number that is kept exact (not truncated) by getValue()
+    static final long MAX_EXACT = MAX_PARSED_MANTISSA;
 
     @Override
     protected RockNumber doParse(String stringValue, int radix) {
@@ -207,6 +218,9 @@ public class RockNumberDec64 extends RockNumber {
          if (bn instanceof RockNumberDec64) {
             return (RockNumberDec64) bn;
         }
+        if (bn instanceof RockNumberLong) {
+            return getValue(((RockNumberLong) bn).longValue);
+        }
         throw new RockstarRuntimeException("Mixed number types");
     }
     
@@ -318,19 +332,29 @@ public class RockNumberDec64 extends RockNumber {
             int commonE = Integer.min(normalE(this), normalE(o));
             return transformM(this, commonE) == transformM(o, commonE);
         }
+        if (obj instanceof RockNumberLong) {
+            return compareTo((RockNumberLong) obj) == 0;
+        }
         return false;
     }
 
     @Override
     public int hashCode() {
+        // equal values have the same normalized form
+        int e = normalE(this);
+        long m = transformM(this, e);
+        if (e == 0) {
+            // the same as the whole number
+            return Long.hashCode(m);
+        }
         int hash = 5;
-        hash = 29 * hash + (int) (this.mantissa ^ (this.mantissa >>> 32));
-        hash = 29 * hash + this.exponent;
+        hash = 29 * hash + (int) (m ^ (m >>> 32));
+        hash = 29 * hash + e;
         return hash;
     }
 
     @Override
-    public RockNumber getValue(Double dblValue) {
+    public RockNumber getValue(double dblValue) {
         return parse(Double.toString(dblValue));
     }
 
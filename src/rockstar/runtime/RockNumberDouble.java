@@ -1,7 +1,5 @@
 package rockstar.runtime;
 
-import java.util.Objects;
-
 /**
  * RockNumber is the number abstraction layer for Rockstar
  *
@@ -9,15 +7,44 @@ import java.util.Objects;
  */
 public class RockNumberDouble extends RockNumber {
 
-    static final RockNumberDouble ZERO = new RockNumberDouble(0.0D);
-    static final RockNumberDouble ONE = new RockNumberDouble(1.0D);
+    private static final long serialVersionUID = 1L;
+
+    // cached instances for the small integers (counters, indexes, flags)
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final RockNumberDouble[] CACHE = new RockNumberDouble[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new RockNumberDouble(i + CACHE_LOW);
+        }
+    }
+
+    static final RockNumberDouble ZERO = of(0.0D);
+    static final RockNumberDouble ONE = of(1.0D);
     
-    public final Double dblValue;
+    public final double dblValue;
 
-    private RockNumberDouble(Double dblValue) {
+    private RockNumberDouble(double dblValue) {
         this.dblValue = dblValue;
     }
 
+    /**
+     * Number instance for the value, small integers are taken from the cache
+     *
+     * @param dblValue
+     * @return
+     */
+    static RockNumberDouble of(double dblValue) {
+        int i = (int) dblValue;
+        if (i >= CACHE_LOW && i <= CACHE_HIGH && i == dblValue
+                && (i != 0 || Double.doubleToRawLongBits(dblValue) == 0L)) {
+            // -0.0 is not cached, it is a different value
+            return CACHE[i - CACHE_LOW];
+        }
+        return new RockNumberDouble(dblValue);
+    }
+
     @Override
     public RockNumber getZERO() {
         return ZERO;
@@ -33,7 +60,7 @@ public class RockNumberDouble extends RockNumber {
         if (radix == 10) {
             try {
                 // parse as double
-                return new RockNumberDouble(Double.parseDouble(stringValue));
+                return of(Double.parseDouble(stringValue));
             } catch (NumberFormatException nfe) {
             }
         }
@@ -41,73 +68,76 @@ public class RockNumberDouble extends RockNumber {
         
         try {
             // parse as long
-            return new RockNumberDouble((double)Long.parseLong(stringValue, radix));
+            return of((double)Long.parseLong(stringValue, radix));
         } catch (NumberFormatException nfe) {
             return null;
         }
     }
 
     @Override
-    public RockNumber getValue(Double dblValue) {
-        return new RockNumberDouble(dblValue);
+    public RockNumber getValue(double dblValue) {
+        return of(dblValue);
     }
 
     @Override
     public RockNumber getValue(long l) {
-        return new RockNumberDouble((double) l);
+        return of((double) l);
     }
 
     private double convertToDbl(RockNumber n) {
         if (n instanceof RockNumberDouble) {
             return ((RockNumberDouble) n).dblValue;
         }
+        if (n instanceof RockNumberLong) {
+            return ((RockNumberLong) n).longValue;
+        }
         throw new RockstarRuntimeException("Mixed number types");
     }    
     
     @Override
     public int compareTo(RockNumber rn) {
-        return dblValue.compareTo(convertToDbl(rn));
+        return Double.compare(dblValue, convertToDbl(rn));
     }
 
     @Override
     public RockNumberDouble add(RockNumber rn) {
-        return new RockNumberDouble(dblValue + convertToDbl(rn));
+        return of(dblValue + convertToDbl(rn));
     }
 
     @Override
     public RockNumberDouble subtract(RockNumber rn) {
-        return new RockNumberDouble(dblValue - convertToDbl(rn));
+        return of(dblValue - convertToDbl(rn));
     }
 
     @Override
     public RockNumberDouble multiply(RockNumber rn) {
-        return new RockNumberDouble(dblValue * convertToDbl(rn));
+        return of(dblValue * convertToDbl(rn));
     }
 
     @Override
     public RockNumberDouble divide(RockNumber rn) {
-        return new RockNumberDouble(dblValue / convertToDbl(rn));
+        return of(dblValue / convertToDbl(rn));
     }
 
     @Override
     public int asInt() {
-        return dblValue.intValue();
+        return (int) dblValue;
     }
 
     @Override
     public long asLong() {
-        return dblValue.longValue();
+        return (long) dblValue;
     }
 
     @Override
     public String toString() {
         double rounded = (double)Math.round(dblValue);
-        if (dblValue.equals(rounded)) {
+        if (Double.compare(dblValue, rounded) == 0) {
             // integral value
-            return Long.toString(dblValue.longValue());
+            return Long.toString((long) dblValue);
         }
         // fractional value
-        String s = dblValue.toString();
+        String s = Double.toString(dblValue);
         if (s.endsWith(".0")) {
             // chop fraction if integral value
             return s.substring(0, s.length() - 2);
@@ -122,31 +152,39 @@ public class RockNumberDouble extends RockNumber {
         }
         if (obj instanceof RockNumberDouble) {
             RockNumberDouble o = (RockNumberDouble) obj;
-            return Objects.equals(this.dblValue, o.dblValue);
+            return Double.compare(this.dblValue, o.dblValue) == 0;
+        }
+        if (obj instanceof RockNumberLong) {
+            return compareTo((RockNumberLong) obj) == 0;
         }
         return false;
     }    
 
     @Override
     public int hashCode() {
+        long l = (long) dblValue;
+        if (l == dblValue) {
+            // the same as the whole number
+            return Long.hashCode(l);
+        }
         int hash = 7;
-        hash = 47 * hash + Objects.hashCode(this.dblValue);
+        hash = 47 * hash + Double.hashCode(this.dblValue);
         return hash;
     }
 
     @Override
     public RockNumber ceil() {
-        return new RockNumberDouble(Math.ceil(dblValue));
+        return of(Math.ceil(dblValue));
     }
 
     @Override
     public RockNumber floor() {
-        return new RockNumberDouble(Math.floor(dblValue));
+        return of(Math.floor(dblValue));
     }
 
     @Override
     public RockNumber round() {
-        return new RockNumberDouble((double)Math.round(dblValue));
+        return of((double)Math.round(dblValue));
     }
 
     
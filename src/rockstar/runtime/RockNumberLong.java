@@ -0,0 +1,206 @@
+package rockstar.runtime;
+
+/**
+ * Exact integral number, used for the whole numbers in both number modes.
+ * Fractional results, and the results the current (double or Dec64) number type
+ * could not represent exactly, are calculated in that number type.
+ *
+ * @author Gabor
+ */
+public class RockNumberLong extends RockNumber {
+
+    private static final long serialVersionUID = 1L;
+
+    // cached instances for the small integers (counters, indexes, flags)
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final RockNumberLong[] CACHE = new RockNumberLong[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new RockNumberLong(i + CACHE_LOW);
+        }
+    }
+
+    static final RockNumberLong ZERO = of(0L);
+    static final RockNumberLong ONE = of(1L);
+
+    public final long longValue;
+
+    private RockNumberLong(long longValue) {
+        this.longValue = longValue;
+    }
+
+    /**
+     * Number instance for the value, small integers are taken from the cache
+     *
+     * @param longValue
+     * @return
+     */
+    static RockNumberLong of(long longValue) {
+        if (longValue >= CACHE_LOW && longValue <= CACHE_HIGH) {
+            return CACHE[(int) longValue - CACHE_LOW];
+        }
+        return new RockNumberLong(longValue);
+    }
+
+    /**
+     * Deserialized small integers are taken from the cache, too
+     *
+     * @return
+     */
+    private Object readResolve() {
+        return of(longValue);
+    }
+
+    /**
+     * The same value in the current number type
+     */
+    private RockNumber promote() {
+        return RockNumber.promote(longValue);
+    }
+
+    @Override
+    protected RockNumber getZERO() {
+        return ZERO;
+    }
+
+    @Override
+    protected RockNumber getONE() {
+        return ONE;
+    }
+
+    @Override
+    protected RockNumber doParse(String stringValue, int radix) {
+        return promote().doParse(stringValue, radix);
+    }
+
+    @Override
+    protected RockNumber getValue(double dblValue) {
+        return promote().getValue(dblValue);
+    }
+
+    @Override
+    protected RockNumber getValue(long l) {
+        return of(l);
+    }
+
+    @Override
+    public int compareTo(RockNumber rn) {
+        if (rn instanceof RockNumberLong) {
+            return Long.compare(longValue, ((RockNumberLong) rn).longValue);
+        }
+        return promote().compareTo(rn);
+    }
+
+    @Override
+    public RockNumber add(RockNumber rn) {
+        if (rn instanceof RockNumberLong) {
+            long l = ((RockNumberLong) rn).longValue;
+            long result = longValue + l;
+            // overflow if both operands have a different sign than the result
+            if (((longValue ^ result) & (l ^ result)) >= 0) {
+                return getValueFromLong(result);
+            }
+            rn = ((RockNumberLong) rn).promote();
+        }
+        return promote().add(rn);
+    }
+
+    @Override
+    public RockNumber subtract(RockNumber rn) {
+        if (rn instanceof RockNumberLong) {
+            long l = ((RockNumberLong) rn).longValue;
+            long result = longValue - l;
+            // overflow if the operands have different signs, and the sign of the result differs from the first one
+            if (((longValue ^ l) & (longValue ^ result)) >= 0) {
+                return getValueFromLong(result);
+            }
+            rn = ((RockNumberLong) rn).promote();
+        }
+        return promote().subtract(rn);
+    }
+
+    @Override
+    public RockNumber multiply(RockNumber rn) {
+        if (rn instanceof RockNumberLong) {
+            long l = ((RockNumberLong) rn).longValue;
+            try {
+                long result = Math.multiplyExact(longValue, l);
+                // zero times a negative number is -0 in double mode
+                if (result != 0 || (longValue ^ l) >= 0) {
+                    return getValueFromLong(result);
+                }
+            } catch (ArithmeticException overflow) {
+                // calculated in the current number type
+            }
+            rn = ((RockNumberLong) rn).promote();
+        }
+        return promote().multiply(rn);
+    }
+
+    @Override
+    public RockNumber divide(RockNumber rn) {
+        if (rn instanceof RockNumberLong) {
+            long l = ((RockNumberLong) rn).longValue;
+            // exact division, except zero over a negative number (-0 in double mode)
+            if (l != 0 && (longValue % l == 0) && !(longValue == Long.MIN_VALUE && l == -1)
+                    && (longValue != 0 || l > 0)) {
+                return getValueFromLong(longValue / l);
+            }
+            rn = ((RockNumberLong) rn).promote();
+        }
+        return promote().divide(rn);
+    }
+
+    @Override
+    public int asInt() {
+        return (int) longValue;
+    }
+
+    @Override
+    public long asLong() {
+        return longValue;
+    }
+
+    @Override
+    public RockNumber ceil() {
+        return this;
+    }
+
+    @Override
+    public RockNumber floor() {
+        return this;
+    }
+
+    @Override
+    public RockNumber round() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(longValue);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof RockNumberLong) {
+            return longValue == ((RockNumberLong) obj).longValue;
+        }
+        if (obj instanceof RockNumber) {
+            // whole number in the other number types
+            return promote().equals(obj);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(longValue);
+    }
+
+}
@@ -62,6 +62,10 @@ public class RockObject extends BlockContext {
         return objId;
     }
 
+    public ClassBlock getClassBlock() {
+        return classBlock;
+    }
+
     public RockObject getSuperObject() {
         return superObject;
     }
@@ -127,7 +131,7 @@ public class RockObject extends BlockContext {
         if (superObject != null) {
             sb.append(superObject.describe());
         }
-        for (Map.Entry<String, Value> entry : vars.entrySet()) {
+        for (Map.Entry<String, Value> entry : getVariables().entrySet()) {
             sb.append("  ")
                     .append(entry.getKey())
                     .append(" => ")
@@ -6,12 +6,17 @@
 package rockstar.runtime;
 
 /**
+ * Breaks the innermost loop. It carries no state and no stack trace, so a
+ * single instance is thrown.
  *
  * @author Gabor
  */
 public class RockstarBreakException extends RuntimeException {
+
+    public static final RockstarBreakException INSTANCE = new RockstarBreakException();
    
     public RockstarBreakException() {
+        super(null, null, false, false);
     }
     
 }
@@ -6,12 +6,17 @@
 package rockstar.runtime;
 
 /**
+ * Continues with the next iteration of the innermost loop. It carries no state
+ * and no stack trace, so a single instance is thrown.
  *
  * @author Gabor
  */
 public class RockstarContinueException extends RuntimeException {
+
+    public static final RockstarContinueException INSTANCE = new RockstarContinueException();
    
     public RockstarContinueException() {
+        super(null, null, false, false);
     }
     
 }
@@ -6,6 +6,8 @@
 package rockstar.runtime;
 
 /**
+ * Returns from a function with the given value. The stack trace is not
+ * filled, as it is thrown on every function return.
  *
  * @author Gabor
  */
@@ -14,6 +16,7 @@ public class RockstarReturnException extends RuntimeException {
     private final Value returnValue;
 
     public RockstarReturnException(Value returnValue) {
+        super(null, null, false, false);
         this.returnValue = returnValue;
     }
 
@@ -64,7 +64,7 @@ public class RockstarRuntimeException extends RuntimeException {
                 .append(ctx.getName())
                 .append("): ")
                 .append(l.getOrigLine());
-        if (repeatCount > 1) {
+        if (repeatCount > 0) {
             sb.append("\n   [+ ")
                     .append(repeatCount)
                     .append(" more time")
@@ -91,11 +91,12 @@ public class RockstarRuntimeException extends RuntimeException {
             return context;
         }
 
+        // the lines of recursive calls are equal, so they are listed once
         @Override
         public int hashCode() {
             int hash = 7;
             hash = 31 * hash + Objects.hashCode(this.line);
-            hash = 31 * hash + Objects.hashCode(this.context);
+            hash = 31 * hash + Objects.hashCode(this.context.getCtxName());
             return hash;
         }
 
@@ -114,7 +115,7 @@ public class RockstarRuntimeException extends RuntimeException {
             if (!Objects.equals(this.line, other.line)) {
                 return false;
             }
-            if (!Objects.equals(this.context, other.context)) {
+            if (!Objects.equals(this.context.getCtxName(), other.context.getCtxName())) {
                 return false;
             }
             return true;
@@ -0,0 +1,20 @@
+package rockstar.runtime;
+
+/**
+ * Restarts the running function: a self tail call has already set the new
+ * parameters in the function context. It carries no state and no stack
+ * trace, so a single instance is thrown.
+ *
+ * @author Gabor
+ */
+public class RockstarTailCallException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final RockstarTailCallException INSTANCE = new RockstarTailCallException();
+
+    public RockstarTailCallException() {
+        super(null, null, false, false);
+    }
+
+}
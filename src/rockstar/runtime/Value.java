@@ -1,14 +1,18 @@
 
 package rockstar.runtime;
 
+import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.TreeMap;
 import rockstar.parser.ExpressionParser;
 import rockstar.expression.ExpressionType;
@@ -28,43 +32,352 @@ import rockstar.statement.FunctionBlock;
  *   + List (linear array)
  *   + Map (associative array)
  *
+ * Scalar values keep their content in a single payload field. Arrays are
+ * ArrayValue instances, their list and map parts are allocated on first write.
+ * Appending to an array shares the list of the original array, so building an
+ * array element by element does not copy it. The values of the small integers
+ * and of the single Latin-1 characters are canonical, taken from a cache.
+ *
  * @author Gabor
  */
-public class Value implements Comparable<Value> {
+public class Value implements Comparable<Value>, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     public static Value MYSTERIOUS = new Value(ExpressionType.MYSTERIOUS);
     public static Value NULL = new Value(ExpressionType.NULL);
     public static Value BOOLEAN_TRUE = new Value(true);
     public static Value BOOLEAN_FALSE = new Value(false);
-    public static Value EMPTY_ARRAY = new Value(ExpressionType.ARRAY);
+    public static Value EMPTY_ARRAY = new ArrayValue();
+
+    // canonical values of the small integers (loop indexes, counters), the same
+    // range as the RockNumberLong cache
+    private static final int INT_CACHE_LOW = -128;
+    private static final int INT_CACHE_HIGH = 1023;
+    private static final Value[] INT_CACHE = new Value[INT_CACHE_HIGH - INT_CACHE_LOW + 1];
+    // canonical values of the single character strings (string indexing)
+    private static final Value[] CHAR_CACHE = new Value[256];
 
     private final ExpressionType type;
-    private String stringValue;
-    private RockNumber numericValue;
-    private Boolean boolValue;
-    private RockObject objectValue;
-    private List<Value> listArrayValue;
-    private Map<Value, Value> assocArrayValue;
+    // String, RockNumber, Boolean or RockObject, depending on the type
+    private final Object payload;
+
+    /**
+     * Array value: the list and the associative parts are allocated lazily, a
+     * null part is the same as an empty one.
+     *
+     * The list part is a window of the list: rolling moves the start of the
+     * window, so the elements are not shifted. A shared list may be used by
+     * several array values, each of them with its own window. Elements are
+     * only appended to a shared list, by the array whose window ends at the end
+     * of the list. Other changes are made on a private copy. A shared map is
+     * copied on the first change, too.
+     */
+    private static class ArrayValue extends Value {
+
+        private static final long serialVersionUID = 1L;
+
+        private List<Value> listArrayValue;
+        private int listStart = 0;
+        // the end of the window, if the list is shared
+        private int listEnd;
+        private boolean listShared = false;
+        private AssocArray assocArrayValue;
+        private boolean mapShared = false;
+
+        private ArrayValue() {
+            super(ExpressionType.ARRAY, null);
+        }
+
+        /**
+         * The list part, for modification
+         */
+        private List<Value> list() {
+            if (listArrayValue == null) {
+                listArrayValue = new ArrayList<>();
+            } else if (listShared || listStart > 0) {
+                // copy on write
+                listArrayValue = new ArrayList<>(readList());
+                listStart = 0;
+                listShared = false;
+            }
+            return listArrayValue;
+        }
+
+        /**
+         * The list with the window starting at listStart, for modification
+         */
+        private List<Value> privateList() {
+            if (listArrayValue == null) {
+                listArrayValue = new ArrayList<>();
+            } else if (listShared) {
+                // copy on write
+                listArrayValue = new ArrayList<>(readList());
+                listStart = 0;
+                listShared = false;
+            }
+            return listArrayValue;
+        }
+
+        /**
+         * The list part, for reading only
+         */
+        private List<Value> readList() {
+            if (listArrayValue == null) {
+                return Collections.emptyList();
+            }
+            if (listShared || listStart > 0) {
+                return new ListWindow(listArrayValue, listStart, listEnd());
+            }
+            return listArrayValue;
+        }
+
+        private void share() {
+            if (!listShared) {
+                listEnd = listArrayValue.size();
+                listShared = true;
+            }
+        }
+
+        private void setSharedWindow(List<Value> list, int start, int end) {
+            listArrayValue = list;
+            listStart = start;
+            listEnd = end;
+            listShared = true;
+        }
+
+        /**
+         * New array with the elements appended to the list part. The list is
+         * shared, if the window ends at the end of the list. Otherwise, or if
+         * the most of the list was rolled out, the window is copied.
+         *
+         * @param elements
+         * @return
+         */
+        private ArrayValue appended(List<Value> elements) {
+            ArrayValue v = newArrayValue();
+            int size = listSize();
+            if (listArrayValue != null && listEnd() == listArrayValue.size() && listStart <= size) {
+                share();
+                listArrayValue.addAll(elements);
+                v.setSharedWindow(listArrayValue, listStart, listArrayValue.size());
+            } else if (size + elements.size() > 0) {
+                List<Value> l = new ArrayList<>(size + elements.size());
+                l.addAll(readList());
+                l.addAll(elements);
+                v.listArrayValue = l;
+            }
+            return v;
+        }
+
+        /**
+         * Removes the first element of the list part
+         *
+         * @return the removed element, or MYSTERIOUS if the list is empty
+         */
+        private Value rollFirst() {
+            if (listSize() == 0) {
+                return MYSTERIOUS;
+            }
+            return listArrayValue.get(listStart++);
+        }
+
+        /**
+         * The associative part, for modification
+         */
+        private Map<Value, Value> map() {
+            if (assocArrayValue == null) {
+                assocArrayValue = new AssocArray();
+            } else if (mapShared) {
+                // copy on write
+                assocArrayValue = new AssocArray(assocArrayValue);
+                mapShared = false;
+            }
+            return assocArrayValue;
+        }
+
+        /**
+         * The associative part, for reading only
+         */
+        private Map<Value, Value> readMap() {
+            return (assocArrayValue == null) ? Collections.emptyMap() : assocArrayValue;
+        }
+
+        private void shareMap(ArrayValue from) {
+            if (from.assocArrayValue != null) {
+                from.mapShared = true;
+                assocArrayValue = from.assocArrayValue;
+                mapShared = true;
+            }
+        }
+
+        private void shareList(ArrayValue from) {
+            if (from.listArrayValue != null) {
+                from.share();
+                setSharedWindow(from.listArrayValue, from.listStart, from.listEnd);
+            }
+        }
+
+        private int listEnd() {
+            return listShared ? listEnd : listArrayValue.size();
+        }
+
+        private int listSize() {
+            if (listArrayValue == null) {
+                return 0;
+            }
+            return listEnd() - listStart;
+        }
+
+        private int mapSize() {
+            return (assocArrayValue == null) ? 0 : assocArrayValue.size();
+        }
+    }
+
+    /**
+     * Associative array part: a hash map with a sorted key index, that is
+     * built on demand and dropped on every change. A map may be shared by
+     * several arrays, so the index is kept with the map.
+     */
+    private static class AssocArray extends HashMap<Value, Value> {
+
+        private static final long serialVersionUID = 1L;
+
+        private List<Value> sortedKeys = null;
+
+        private AssocArray() {
+        }
+
+        private AssocArray(Map<Value, Value> m) {
+            super(m);
+        }
+
+        private List<Value> sortedKeys() {
+            if (sortedKeys == null) {
+                Value[] keys = keySet().toArray(new Value[size()]);
+                Arrays.sort(keys);
+                sortedKeys = Collections.unmodifiableList(Arrays.asList(keys));
+            }
+            return sortedKeys;
+        }
+
+        @Override
+        public Value put(Value key, Value value) {
+            sortedKeys = null;
+            return super.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends Value, ? extends Value> m) {
+            sortedKeys = null;
+            super.putAll(m);
+        }
+
+        @Override
+        public Value remove(Object key) {
+            sortedKeys = null;
+            return super.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            sortedKeys = null;
+            super.clear();
+        }
+    }
+
+    /**
+     * A window of a list. The elements of a shared list are never changed, so
+     * a window of it remains valid while other arrays append to the list.
+     */
+    private static class ListWindow extends AbstractList<Value> implements RandomAccess {
+
+        private final List<Value> list;
+        private final int start;
+        private final int size;
+
+        private ListWindow(List<Value> list, int start, int end) {
+            this.list = list;
+            this.start = start;
+            this.size = end - start;
+        }
+
+        @Override
+        public Value get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return list.get(start + index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
 
     public static Value getValue(String s) {
+        if (s.length() == 1 && s.charAt(0) < CHAR_CACHE.length) {
+            return getCharValue(s.charAt(0));
+        }
         return new Value(s);
     }
 
+    /**
+     * Single character string value, cached for the Latin-1 characters
+     *
+     * @param c
+     * @return
+     */
+    public static Value getCharValue(char c) {
+        if (c >= CHAR_CACHE.length) {
+            return new Value(String.valueOf(c));
+        }
+        Value v = CHAR_CACHE[c];
+        if (v == null) {
+            // values are immutable, a concurrent duplicate is harmless
+            v = new Value(String.valueOf(c));
+            CHAR_CACHE[c] = v;
+        }
+        return v;
+    }
+
     public static Value getValue(RockNumber n) {
+        if (n instanceof RockNumberLong) {
+            long l = ((RockNumberLong) n).longValue;
+            if (l >= INT_CACHE_LOW && l <= INT_CACHE_HIGH) {
+                return getIntValue((int) l);
+            }
+        }
         return new Value(n);
     }
 
     public static Value getValue(long n) {
+        if (n >= INT_CACHE_LOW && n <= INT_CACHE_HIGH) {
+            return getIntValue((int) n);
+        }
         return new Value(RockNumber.getValueFromLong(n));
     }
 
+    private static Value getIntValue(int n) {
+        Value v = INT_CACHE[n - INT_CACHE_LOW];
+        if (v == null) {
+            // values are immutable, a concurrent duplicate is harmless
+            v = new Value(RockNumberLong.of(n));
+            INT_CACHE[n - INT_CACHE_LOW] = v;
+        }
+        return v;
+    }
+
     public static Value getValue(boolean b) {
         return b ? BOOLEAN_TRUE : BOOLEAN_FALSE;
     }
 
     public static Value getValue(Collection<Value> coll) {
-        Value v = newArrayValue();
-        v.listArrayValue.addAll(coll);
+        ArrayValue v = newArrayValue();
+        if (!coll.isEmpty()) {
+            v.listArrayValue = new ArrayList<>(coll);
+        }
         return v;
     }
 
@@ -93,36 +406,75 @@ public class Value implements Comparable<Value> {
         return getValue(s);
     }
 
-    private static Value newArrayValue() {
-        return new Value(ExpressionType.ARRAY);
+    private static ArrayValue newArrayValue() {
+        return new ArrayValue();
     }
 
     private Value(ExpressionType type) {
+        this(type, null);
+    }
+
+    private Value(ExpressionType type, Object payload) {
         this.type = type;
-        if (type == ExpressionType.ARRAY) {
-            listArrayValue = new ArrayList<>();
-            assocArrayValue = new HashMap<>();
-        }
+        this.payload = payload;
     }
 
     private Value(String stringValue) {
-        this.stringValue = stringValue;
-        this.type = ExpressionType.STRING;
+        this(ExpressionType.STRING, stringValue);
     }
 
     private Value(RockNumber numericValue) {
-        this.numericValue = numericValue;
-        this.type = ExpressionType.NUMBER;
+        this(ExpressionType.NUMBER, numericValue);
     }
 
     private Value(Boolean boolValue) {
-        this.boolValue = boolValue;
-        this.type = ExpressionType.BOOLEAN;
+        this(ExpressionType.BOOLEAN, boolValue);
     }
 
     private Value(RockObject objectValue) {
-        this.objectValue = objectValue;
-        this.type = ExpressionType.OBJECT;
+        this(ExpressionType.OBJECT, objectValue);
+    }
+
+    /**
+     * Deserialized scalar values (constants of a precompiled program) are
+     * replaced by the canonical instances
+     *
+     * @return
+     */
+    private Object readResolve() {
+        switch (type) {
+            case MYSTERIOUS:
+                return MYSTERIOUS;
+            case NULL:
+                return NULL;
+            case BOOLEAN:
+                return getValue(boolValue());
+            case NUMBER:
+                return getValue(numericValue());
+            case STRING:
+                return getValue(stringValue());
+        }
+        return this;
+    }
+
+    private String stringValue() {
+        return (String) payload;
+    }
+
+    private RockNumber numericValue() {
+        return (RockNumber) payload;
+    }
+
+    private boolean boolValue() {
+        return (Boolean) payload;
+    }
+
+    private RockObject objectValue() {
+        return (RockObject) payload;
+    }
+
+    private ArrayValue arrayValue() {
+        return (ArrayValue) this;
     }
 
     public ExpressionType getType() {
@@ -158,22 +510,21 @@ public class Value implements Comparable<Value> {
     }
 
     public boolean isEmptyArray() {
-        return (this.listArrayValue == null || this.listArrayValue.isEmpty())
-                && (this.assocArrayValue == null || this.assocArrayValue.isEmpty());
+        return isArray() && arrayValue().listSize() + arrayValue().mapSize() == 0;
     }
 
     public RockNumber getNumeric() {
         switch (getType()) {
             case NUMBER:
-                return numericValue;
+                return numericValue();
             case STRING:
                 try {
-                    return RockNumber.parse(stringValue);
+                    return RockNumber.parse(stringValue());
                 } catch (NumberFormatException nfe) {
                     return null;
                 }
             case BOOLEAN:
-                return boolValue ? RockNumber.ONE() : RockNumber.ZERO();
+                return boolValue() ? RockNumber.ONE() : RockNumber.ZERO();
             case OBJECT:
                 return RockNumber.ZERO();
             case MYSTERIOUS:
@@ -181,7 +532,7 @@ public class Value implements Comparable<Value> {
             case NULL:
                 return RockNumber.ZERO();
             case ARRAY:
-                return RockNumber.getValueFromLong(listArrayValue.size());
+                return RockNumber.getValueFromLong(arrayValue().listSize());
         }
         throw new RockstarRuntimeException("unknown numeric value");
     }
@@ -189,12 +540,13 @@ public class Value implements Comparable<Value> {
     public String getString() {
         switch (getType()) {
             case STRING:
-                return stringValue;
+                return stringValue();
             case NUMBER:
-                return numericValue.toString();
+                return numericValue().toString();
             case BOOLEAN:
-                return boolValue.toString();
+                return payload.toString();
             case OBJECT: {
+                RockObject objectValue = objectValue();
                 // if we have "describe" method
                 BlockContext descContext = objectValue.getContextForFunction(METHOD_NAME_DESCRIPTION);
                 // the call context must be the same object as the caller object
@@ -217,11 +569,11 @@ public class Value implements Comparable<Value> {
                 return "null";
             case ARRAY: {
                 StringBuilder sb = new StringBuilder();
-                listArrayValue.forEach(v -> {
+                arrayValue().readList().forEach(v -> {
                     sb.append(sb.length() == 0 ? "" : ",")
                             .append(v);
                 });
-                assocArrayValue.forEach((k, v) -> {
+                arrayValue().readMap().forEach((k, v) -> {
                     sb.append(sb.length() == 0 ? "" : ",")
                             .append(v)
                             .append(" at ")
@@ -237,11 +589,11 @@ public class Value implements Comparable<Value> {
     public boolean getBool() {
         switch (getType()) {
             case BOOLEAN:
-                return boolValue;
+                return boolValue();
             case NUMBER:
-                return numericValue.compareTo(RockNumber.ZERO()) != 0;
+                return numericValue().compareTo(RockNumber.ZERO()) != 0;
             case STRING:
-                return this.stringValue.length() > 0;
+                return stringValue().length() > 0;
             case OBJECT:
                 return true;
             case MYSTERIOUS:
@@ -249,14 +601,14 @@ public class Value implements Comparable<Value> {
             case NULL:
                 return false;
             case ARRAY:
-                return listArrayValue.size() + assocArrayValue.size() > 0;
+                return arrayValue().listSize() + arrayValue().mapSize() > 0;
         }
         throw new RockstarRuntimeException("unknown bool value");
     }
 
     public RockObject getObject() {
         if (getType() == ExpressionType.OBJECT) {
-            return objectValue;
+            return objectValue();
         }
         throw new RockstarRuntimeException("unknown object value");
     }
@@ -274,23 +626,82 @@ public class Value implements Comparable<Value> {
             case NUMBER:
                 return this;
             case ARRAY:
-                return getValue(this.listArrayValue.size());
+                return getValue(arrayValue().listSize());
             case OBJECT:
                 return getValue(RockNumber.ONE());
         }
         return null;
     }
 
+    /**
+     * The list part of an array, for reading only: it must not be modified.
+     *
+     * @return
+     */
+    public List<Value> asListView() {
+        if (type == ExpressionType.ARRAY) {
+            return arrayValue().readList();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * The size of the list part of an array
+     *
+     * @return
+     */
+    public int getListSize() {
+        return (type == ExpressionType.ARRAY) ? arrayValue().listSize() : 0;
+    }
+
+    /**
+     * An element of the list part of an array, read through the current list
+     * (a change may replace the list of the array)
+     *
+     * @param index must be less than the list size
+     * @return
+     */
+    public Value getListElement(int index) {
+        ArrayValue a = arrayValue();
+        return a.listArrayValue.get(a.listStart + index);
+    }
+
+    /**
+     * The keys of the associative part of an array, in ascending order. The
+     * order is cached until the next change of the array.
+     *
+     * @return
+     */
+    public List<Value> asSortedKeys() {
+        if (type == ExpressionType.ARRAY && arrayValue().mapSize() > 0) {
+            return arrayValue().assocArrayValue.sortedKeys();
+        }
+        return Collections.emptyList();
+    }
+
     public List<Value> asListArray() {
         if (type == ExpressionType.ARRAY) {
-            return this.listArrayValue;
+            return arrayValue().list();
         }
         return new LinkedList<>();
     }
 
+    /**
+     * The associative part of an array, for reading only: it must not be
+     * modified.
+     *
+     * @return
+     */
+    public Map<Value, Value> asAssocView() {
+        if (type == ExpressionType.ARRAY) {
+            return arrayValue().readMap();
+        }
+        return Collections.emptyMap();
+    }
+
     public Map<Value, Value> asAssocArray() {
         if (type == ExpressionType.ARRAY) {
-            return this.assocArrayValue;
+            return arrayValue().map();
         }
         return new TreeMap<>();
     }
@@ -299,16 +710,15 @@ public class Value implements Comparable<Value> {
     public String toString() {
         switch (this.type) {
             case NUMBER:
-                return numericValue.toString();
             case STRING:
-                return stringValue;
             case BOOLEAN:
-                return Boolean.toString(boolValue);
+                return payload.toString();
             case ARRAY:
-                return ((listArrayValue.size() > 0) ? (listArrayValue.toString()) : "")
-                        + (assocArrayValue.size() > 0 ? (assocArrayValue.toString()) : "");
+                ArrayValue a = arrayValue();
+                return ((a.listSize() > 0) ? (a.readList().toString()) : "")
+                        + (a.mapSize() > 0 ? (a.assocArrayValue.toString()) : "");
             case OBJECT:
-                return "Object(" + objectValue + ")";
+                return "Object(" + payload + ")";
         }
         return this.type.toString();
     }
@@ -316,15 +726,13 @@ public class Value implements Comparable<Value> {
     public String describe() {
         switch (this.type) {
             case NUMBER:
-                return numericValue.toString();
             case STRING:
-                return stringValue;
             case BOOLEAN:
-                return Boolean.toString(boolValue);
+                return payload.toString();
             case ARRAY:
                 return toString();
             case OBJECT:
-                return "Object(" + objectValue + ")\n" + objectValue.describe();
+                return "Object(" + payload + ")\n" + objectValue().describe();
         }
         return this.type.toString();
     }
@@ -335,50 +743,54 @@ public class Value implements Comparable<Value> {
     }
 
     public Value plus(Value other) {
+        if (type == ExpressionType.NUMBER && other.type == ExpressionType.NUMBER) {
+            // number-number fast path, without the conversions
+            return getValue(numericValue().add(other.numericValue()));
+        }
 
         // merge arrays
         if (this.isArray() && other.isArray()) {
-            Value v = newArrayValue();
+            ArrayValue a1 = arrayValue();
+            ArrayValue a2 = other.arrayValue();
+            ArrayValue v = newArrayValue();
             // assoc arrays            
-            if (assocArrayValue != null) {
-                v.assocArrayValue.putAll(assocArrayValue);
-            }
-            if (other.assocArrayValue != null) {
-                v.assocArrayValue.putAll(other.assocArrayValue);
+            if (a1.mapSize() + a2.mapSize() > 0) {
+                Map<Value, Value> m = v.map();
+                if (a1.assocArrayValue != null) {
+                    m.putAll(a1.assocArrayValue);
+                }
+                if (a2.assocArrayValue != null) {
+                    m.putAll(a2.assocArrayValue);
+                }
             }
             // concatenate list values, too
-            if (listArrayValue != null) {
-                v.listArrayValue.addAll(listArrayValue);
-            }
-            if (other.listArrayValue != null) {
-                v.listArrayValue.addAll(other.listArrayValue);
-            }
-            return v;
+            ArrayValue appended = a1.appended(a2.readList());
+            appended.assocArrayValue = v.assocArrayValue;
+            return appended;
         }
 
         // append to list or concatenate
         if (this.isArray() && (!other.isArray())) {
-            Value v = newArrayValue();
-            // original value should not be changed
-            if (listArrayValue != null) {
-                v.listArrayValue.addAll(listArrayValue);
-            }
-            // append value
-            v.listArrayValue.add(other);
-            // it is not changed, assigned by reference
-            v.assocArrayValue = assocArrayValue;
+            ArrayValue a = arrayValue();
+            // original value is not changed, the list is shared
+            ArrayValue v = a.appended(Collections.singletonList(other));
+            // it is not changed, shared until the first change
+            v.shareMap(a);
             return v;
         }
 
         // prepend to list or concatenate
         if (other.isArray() && (!this.isArray())) {
-            Value v = newArrayValue();
+            ArrayValue a = other.arrayValue();
+            ArrayValue v = newArrayValue();
+            List<Value> l = new ArrayList<>(a.listSize() + 1);
             // prepend value
-            v.listArrayValue.add(this);
+            l.add(this);
             // original value should not be changed
-            v.listArrayValue.addAll(other.listArrayValue);
-            // it is not changed, assigned by reference
-            v.assocArrayValue = other.assocArrayValue;
+            l.addAll(a.readList());
+            v.listArrayValue = l;
+            // it is not changed, shared until the first change
+            v.shareMap(a);
             return v;
         }
 
@@ -406,27 +818,55 @@ public class Value implements Comparable<Value> {
         throw new RockstarRuntimeException(getType() + " plus " + other.getType());
     }
 
+    /**
+     * Addition of two numbers, without type checks (for the specialized nodes)
+     *
+     * @param other
+     * @return
+     */
+    public Value plusNumeric(Value other) {
+        return getValue(numericValue().add(other.numericValue()));
+    }
+
+    /**
+     * Concatenation of two strings, without type checks (for the specialized
+     * nodes)
+     *
+     * @param other
+     * @return
+     */
+    public Value plusString(Value other) {
+        return getValue(stringValue() + other.stringValue());
+    }
+
     public Value minus(Value other) {
+        if (type == ExpressionType.NUMBER && other.type == ExpressionType.NUMBER) {
+            // number-number fast path, without the conversions
+            return getValue(numericValue().subtract(other.numericValue()));
+        }
         if (this.isArray()) {
             // remove subset of assoc arrays
+            ArrayValue a = arrayValue();
             if (other.isString()) {
                 // remove element from hash by key
-                Value v = newArrayValue();
+                ArrayValue v = newArrayValue();
                 // hash is modified
-                v.assocArrayValue.putAll(this.assocArrayValue);
-                // remove by key
-                v.assocArrayValue.remove(other);
+                if (a.assocArrayValue != null) {
+                    v.assocArrayValue = new AssocArray(a.assocArrayValue);
+                    // remove by key
+                    v.assocArrayValue.remove(other);
+                }
                 // list is not changed
-                v.listArrayValue = this.listArrayValue;
+                v.shareList(a);
                 return v;
             }
             if (other.isNumeric()) {
                 // remove element from list by index
-                Value v = newArrayValue();
+                ArrayValue v = newArrayValue();
                 // hash is not changed
-                v.assocArrayValue = this.assocArrayValue;
+                v.shareMap(a);
                 // list is modified
-                v.listArrayValue.addAll(asListArray());
+                v.listArrayValue = new ArrayList<>(a.readList());
                 // remove by index
                 int idx = other.getNumeric().asInt();
                 v.listArrayValue.remove(idx);
@@ -446,6 +886,10 @@ public class Value implements Comparable<Value> {
     }
 
     public Value multiply(Value other) {
+        if (type == ExpressionType.NUMBER && other.type == ExpressionType.NUMBER) {
+            // number-number fast path, without the conversions
+            return getValue(numericValue().multiply(other.numericValue()));
+        }
         RockNumber v2 = other.getNumeric();
         if (isString()) {
             if (other.isString()) {
@@ -471,6 +915,10 @@ public class Value implements Comparable<Value> {
     }
 
     public Value divide(Value other) {
+        if (type == ExpressionType.NUMBER && other.type == ExpressionType.NUMBER) {
+            // number-number fast path, without the conversions
+            return getValue(numericValue().divide(other.numericValue()));
+        }
         RockNumber v1 = getNumeric();
         RockNumber v2 = other.getNumeric();
         if (v1 != null && v2 != null) {
@@ -506,16 +954,16 @@ public class Value implements Comparable<Value> {
             // Equal types: compare them without conversion
             switch (getType()) {
                 case STRING:
-                    return stringValue.compareTo(other.stringValue);
+                    return stringValue().compareTo(other.stringValue());
                 case NUMBER:
-                    return numericValue.compareTo(other.numericValue);
+                    return numericValue().compareTo(other.numericValue());
                 case BOOLEAN:
-                    return (Objects.equals(boolValue, other.boolValue)) ? 0 : 1;
+                    return (Objects.equals(payload, other.payload)) ? 0 : 1;
                 case OBJECT:
-                    return Integer.compare(objectValue.getObjId(), other.objectValue.getObjId());
+                    return Integer.compare(objectValue().getObjId(), other.objectValue().getObjId());
                 case ARRAY:
-                    return Integer.compare(assocArrayValue.size() + listArrayValue.size(),
-                            other.assocArrayValue.size() + other.listArrayValue.size());
+                    return Integer.compare(arrayValue().mapSize() + arrayValue().listSize(),
+                            other.arrayValue().mapSize() + other.arrayValue().listSize());
                 default:
                     // null, mysterious are equal to themselves
                     return 0;
@@ -545,7 +993,7 @@ public class Value implements Comparable<Value> {
                 case BOOLEAN:
                     // convert String to bool
 //                    Boolean b = getBoolFromStringAliases(stringValue);
-                    boolean b = stringValue != null;
+                    boolean b = stringValue() != null;
                     return (b == other.getBool()) ? 0 : 1;
                 case NUMBER:
                     RockNumber v1 = getNumeric();
@@ -559,7 +1007,7 @@ public class Value implements Comparable<Value> {
                     return 1;
                 case BOOLEAN:
                     // convert String to bool
-                    boolean b = other.stringValue != null;
+                    boolean b = other.stringValue() != null;
                     return (getBool() == b) ? 0 : 1;
                 case NUMBER:
                     RockNumber v2 = other.getNumeric();
@@ -574,6 +1022,28 @@ public class Value implements Comparable<Value> {
         return getNumeric().compareTo(other.getNumeric());
     }
 
+    /**
+     * Comparison of two numbers, without type checks (for the specialized
+     * nodes)
+     *
+     * @param other
+     * @return
+     */
+    public int compareNumeric(Value other) {
+        return numericValue().compareTo(other.numericValue());
+    }
+
+    /**
+     * Comparison of two strings, without type checks (for the specialized
+     * nodes)
+     *
+     * @param other
+     * @return
+     */
+    public int compareString(Value other) {
+        return stringValue().compareTo(other.stringValue());
+    }
+
     private boolean isNothing() {
         switch (this.type) {
             case NULL:
@@ -581,15 +1051,15 @@ public class Value implements Comparable<Value> {
             case MYSTERIOUS:
                 return true;
             case BOOLEAN:
-                return !boolValue;
+                return !boolValue();
             case NUMBER:
-                return numericValue.equals(RockNumber.ZERO());
+                return numericValue().equals(RockNumber.ZERO());
             case STRING:
-                return stringValue.isEmpty();
+                return stringValue().isEmpty();
             case OBJECT:
                 return false;
             case ARRAY:
-                return assocArrayValue.size() + listArrayValue.size() == 0;
+                return isEmptyArray();
         }
         return false;
     }
@@ -630,18 +1100,16 @@ public class Value implements Comparable<Value> {
             }
             switch (this.type) {
                 case NUMBER:
-                    return numericValue.equals(o.numericValue);
                 case STRING:
-                    return stringValue.equals(o.stringValue);
+                case BOOLEAN:
+                    return payload.equals(o.payload);
                 case MYSTERIOUS:
                     return true;
                 case NULL:
                     return true;
-                case BOOLEAN:
-                    return Objects.equals(boolValue, o.boolValue);
                 case ARRAY:
-                    return Utils.isListEquals(listArrayValue, o.listArrayValue)
-                            && Utils.isMapEquals(asAssocArray(), o.asAssocArray());
+                    return Utils.isListEquals(arrayValue().readList(), o.arrayValue().readList())
+                            && Utils.isMapEquals(arrayValue().readMap(), o.arrayValue().readMap());
             }
         }
         return false;
@@ -651,23 +1119,24 @@ public class Value implements Comparable<Value> {
     public int hashCode() {
         int hash = 5;
         hash = 89 * hash + Objects.hashCode(this.type);
-        hash = 89 * hash + Objects.hashCode(this.stringValue);
-        hash = 89 * hash + Objects.hashCode(this.numericValue);
-        hash = 89 * hash + Objects.hashCode(this.boolValue);
-        hash = 89 * hash + Objects.hashCode(this.listArrayValue);
-        hash = 89 * hash + Objects.hashCode(this.assocArrayValue);
+        hash = 89 * hash + Objects.hashCode(this.payload);
+        if (isArray() && !isEmptyArray()) {
+            hash = 89 * hash + arrayValue().readList().hashCode();
+            hash = 89 * hash + arrayValue().readMap().hashCode();
+        }
         return hash;
     }
 
     public Value reference(Value refValue) {
 
         if (isArray()) {
+            ArrayValue a = arrayValue();
             if (refValue.isString()) {
-                return assocArrayValue.getOrDefault(refValue, MYSTERIOUS);
+                return (a.assocArrayValue == null) ? MYSTERIOUS : a.assocArrayValue.getOrDefault(refValue, MYSTERIOUS);
             } else if (refValue.isNumeric()) {
                 int idx = refValue.getNumeric().asInt();
-                if (idx >= 0 && idx < listArrayValue.size()) {
-                    return listArrayValue.get(idx);
+                if (idx >= 0 && idx < a.listSize()) {
+                    return a.listArrayValue.get(a.listStart + idx);
                 } else if (idx >= 0) {
                     return MYSTERIOUS;
                 } else {
@@ -683,22 +1152,22 @@ public class Value implements Comparable<Value> {
     public Value assign(Value refValue, Value setValue) {
         if (isNull() || isArray()) {
             // Empty array handling
-            Value v = (isNull() || isEmptyArray()) ? newArrayValue() : this;
+            ArrayValue v = (isNull() || isEmptyArray()) ? newArrayValue() : arrayValue();
             if (refValue.isString()) {
                 // set hash value
-                v.assocArrayValue.put(refValue, setValue);
+                v.map().put(refValue, setValue);
                 return v;
             } else if (refValue.isNumeric()) {
                 // set array index
                 int idx = refValue.getNumeric().asInt();
                 if (idx >= 0) {
-                    List<Value> la = v.listArrayValue;
-                    if (idx < la.size()) {
+                    List<Value> la = v.privateList();
+                    if (idx < v.listSize()) {
                         // if we have the index, set it
-                        la.set(idx, setValue);
+                        la.set(v.listStart + idx, setValue);
                     } else {
                         // if we don't have it, add MYSTERIOUS as the skipped ones
-                        while (idx > la.size()) {
+                        while (idx > v.listSize()) {
                             la.add(MYSTERIOUS);
                         }
                         // finally add the value as last one
@@ -713,14 +1182,28 @@ public class Value implements Comparable<Value> {
         throw new RockstarRuntimeException("Indexing a non-array type: " + getType());
     }
 
+    /**
+     * Removes the first element of the list part of an array
+     *
+     * @return the removed element, or MYSTERIOUS if the list is empty
+     */
+    public Value roll() {
+        if (isArray()) {
+            return arrayValue().rollFirst();
+        }
+        throw new RockstarRuntimeException("Rolling from a non-array type: " + getType());
+    }
+
     // does the necessary conversion while added as a parameter to a function call
+    // arrays are passed by value: the copy shares the list and the map until the first change
     public Value asParameter() {
         if (! isArray()) {
             return this;
         }
-        Value cloned = newArrayValue();
-        cloned.listArrayValue.addAll(listArrayValue);
-        cloned.assocArrayValue.putAll(assocArrayValue);
+        ArrayValue a = arrayValue();
+        ArrayValue cloned = newArrayValue();
+        cloned.shareList(a);
+        cloned.shareMap(a);
         return cloned;
     }
 
@@ -5,6 +5,7 @@
  */
 package rockstar.statement;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import rockstar.runtime.BlockContext;
@@ -15,12 +16,15 @@ import rockstar.runtime.BlockContext;
  */
 public class AliasStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final List<String> alias;
     private final List<String> keyword;
 
     public AliasStatement(List<String> alias, List<String> keyword) {
-        this.alias = alias;
-        this.keyword = keyword;
+        // the token lists are views of the line tokens
+        this.alias = new ArrayList<>(alias);
+        this.keyword = new ArrayList<>(keyword);
     }
 
     public List<String> getAlias() {
@@ -5,6 +5,7 @@
  */
 package rockstar.statement;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import rockstar.expression.Expression;
@@ -20,6 +21,8 @@ import rockstar.runtime.Value;
  */
 public class ArrayAssignmentStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final VariableReference variable;
     private final List<Expression> expressionList = new LinkedList<>();
 
@@ -52,6 +55,24 @@ public class ArrayAssignmentStatement extends Statement {
         ctx.setVariable(this.variable, arrayValue);
     }
 
+    @Override
+    public void replaceExpression(Expression original, Expression replacement) {
+        // the equal expressions are not replaced
+        for (int i = 0; i < expressionList.size(); i++) {
+            if (expressionList.get(i) == original) {
+                expressionList.set(i, replacement);
+            }
+        }
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        List<Expression> exprs = new ArrayList<>();
+        exprs.add(variable);
+        exprs.addAll(expressionList);
+        return exprs;
+    }
+
     @Override
     protected String explain() {
         StringBuilder sb = new StringBuilder(variable.format());
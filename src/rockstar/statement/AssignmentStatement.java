@@ -5,6 +5,8 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
+import java.util.List;
 import rockstar.expression.Expression;
 import rockstar.expression.QualifierExpression;
 import rockstar.expression.VariableReference;
@@ -18,8 +20,10 @@ import rockstar.runtime.Value;
  */
 public class AssignmentStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final Expression variableExpression;
-    private final Expression valueExpression;
+    private Expression valueExpression;
 
     public AssignmentStatement(Expression variableExpression, Expression valueExpression) {
         this.valueExpression = valueExpression;
@@ -29,6 +33,14 @@ public class AssignmentStatement extends Statement {
         }
     }
 
+    public Expression getVariableExpression() {
+        return variableExpression;
+    }
+
+    public Expression getValueExpression() {
+        return valueExpression;
+    }
+
     @Override
     public void execute(BlockContext ctx) {
         Value value = valueExpression.evaluate(ctx);
@@ -65,6 +77,18 @@ public class AssignmentStatement extends Statement {
         }
     }
 
+    @Override
+    public void replaceExpression(Expression original, Expression replacement) {
+        if (valueExpression == original) {
+            valueExpression = replacement;
+        }
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(variableExpression, valueExpression);
+    }
+
     @Override
     protected String explain() {
         return variableExpression.format() + " := " + valueExpression.format();
@@ -12,6 +12,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import rockstar.expression.HoistedExpression;
 import rockstar.parser.Line;
 import rockstar.parser.ParseException;
 import rockstar.runtime.BlockContext;
@@ -23,12 +24,17 @@ import rockstar.runtime.RockstarRuntimeException;
  */
 public abstract class Block extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private Block parent;
 
     private final List<Statement> statements = new ArrayList<>();
 
     private final Map<List<String>, List<List<String>>> aliasesFor = new HashMap<>();
 
+    // loop-invariant expressions of a loop block, set by the optimizer
+    private transient List<HoistedExpression> hoistedExpressions = null;
+
     public List<Statement> getStatements() {
         return statements;
     }
@@ -40,6 +46,30 @@ public abstract class Block extends Statement {
         statements.add(stmt);
     }
 
+    public void addHoistedExpression(HoistedExpression expr) {
+        if (hoistedExpressions == null) {
+            hoistedExpressions = new ArrayList<>();
+        }
+        hoistedExpressions.add(expr);
+    }
+
+    public boolean hasHoistedExpressions() {
+        return hoistedExpressions != null;
+    }
+
+    /**
+     * Called when a loop block is entered: the loop-invariant expressions are
+     * calculated again, as their variables may have changed since the last
+     * execution of the loop.
+     */
+    public void enterLoop() {
+        if (hoistedExpressions != null) {
+            for (HoistedExpression expr : hoistedExpressions) {
+                expr.reset();
+            }
+        }
+    }
+
     public Statement lastStatement() {
         if (statements.size() > 0) {
             statements.get(statements.size() - 1);
@@ -93,6 +123,14 @@ public abstract class Block extends Statement {
         return aliases;
     }
     
+    /**
+     * @return true if keyword aliases are defined in this block or in an
+     * enclosing one
+     */
+    public boolean hasAliases() {
+        return !aliasesFor.isEmpty() || (parent != null && parent.hasAliases());
+    }
+
     public Iterator<Map.Entry<List<String>, List<List<String>>>> getAliasesIterator() {
          return aliasesFor.entrySet().iterator();
     }
@@ -104,6 +142,10 @@ public abstract class Block extends Statement {
      */
     @Override
     public void execute(BlockContext ctx) {
+        if (!ctx.isInstrumented()) {
+            executeUninstrumented(ctx);
+            return;
+        }
         for (Statement statement : statements) {
             ctx.beforeStatement(statement);
             try {
@@ -116,4 +158,21 @@ public abstract class Block extends Statement {
         }
     }
 
+    /**
+     * Execute a block without the listener hooks
+     *
+     * @param ctx
+     */
+    private void executeUninstrumented(BlockContext ctx) {
+        for (int i = 0; i < statements.size(); i++) {
+            Statement statement = statements.get(i);
+            try {
+                statement.execute(ctx);
+            } catch (RockstarRuntimeException rre) {
+                rre.addStacktraceLine(statement.getLine(), ctx);
+                throw rre;
+            }
+        }
+    }
+
 }
@@ -14,6 +14,8 @@ import rockstar.runtime.RockstarRuntimeException;
  */
 public class BlockEnd extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     @Override
     public void execute(BlockContext ctx) {
     }
@@ -14,6 +14,8 @@ import rockstar.runtime.RockstarBreakException;
  */
 public class BreakStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     @Override
     boolean applyTo(Block block) {
         Block b = block;
@@ -28,7 +30,7 @@ public class BreakStatement extends Statement {
 
     @Override
     public void execute(BlockContext ctx) {
-        throw new RockstarBreakException();
+        throw RockstarBreakException.INSTANCE;
     }
 
     @Override
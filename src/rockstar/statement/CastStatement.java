@@ -5,6 +5,8 @@
  */
 package rockstar.statement;
     
+import java.util.Arrays;
+import java.util.List;
 import rockstar.expression.Expression;
 import rockstar.expression.MutationExpression;
 import rockstar.expression.VariableReference;
@@ -19,6 +21,8 @@ import rockstar.runtime.Value;
  */
 public class CastStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final MutationExpression expr;
 
     public CastStatement(MutationExpression mutationExpression) {
@@ -69,6 +73,11 @@ public class CastStatement extends Statement {
         throw new RockstarRuntimeException("casted " + v.getType());
     }
     
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(expr);
+    }
+
     @Override
     protected String explain() {
         return expr.getTargetReference().format() + " = cast " + expr.format();
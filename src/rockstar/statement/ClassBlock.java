@@ -15,15 +15,17 @@ import rockstar.runtime.*;
  */
 public class ClassBlock extends Block {
 
+    private static final long serialVersionUID = 1L;
+
     private final String name;
     private final String parentName;
 
     private QualifiedClassName qualifiedName;
     private QualifiedClassName qualifiedParentName;
 
-    private FileContext definingContext;
+    private transient FileContext definingContext;
 
-    private ClassBlock parentClass;
+    private transient ClassBlock parentClass;
     private List<String> abstractMethodNames = new LinkedList<>();
 
     public ClassBlock(String name, String parentName) {
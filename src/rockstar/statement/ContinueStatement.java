@@ -14,6 +14,8 @@ import rockstar.runtime.RockstarContinueException;
  */
 public class ContinueStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     @Override
     boolean applyTo(Block block) {
         Block b = block;
@@ -29,7 +31,7 @@ public class ContinueStatement extends Statement {
 
     @Override
     public void execute(BlockContext ctx) {
-        throw new RockstarContinueException();
+        throw RockstarContinueException.INSTANCE;
     }
     
     @Override
@@ -5,7 +5,10 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
+import java.util.List;
 import rockstar.expression.ConstantExpression;
+import rockstar.expression.Expression;
 import rockstar.expression.MinusExpression;
 import rockstar.expression.VariableReference;
 import rockstar.runtime.BlockContext;
@@ -19,6 +22,8 @@ import rockstar.runtime.Value;
  */
 public class DecrementStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final VariableReference variable;
     private final int count;
     private MinusExpression minus;
@@ -28,6 +33,14 @@ public class DecrementStatement extends Statement {
         this.count = count;
     }
 
+    public VariableReference getVariable() {
+        return variable;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
     private MinusExpression getMinus() {
         if (minus == null) {
             minus = new MinusExpression();
@@ -66,6 +79,11 @@ public class DecrementStatement extends Statement {
         throw new RockstarRuntimeException("Cannot decrement " + v.getType());
     }
 
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(variable);
+    }
+
     @Override
     protected String explain() {
         return variable.format() + " -= " + count;
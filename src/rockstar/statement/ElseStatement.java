@@ -13,6 +13,8 @@ import rockstar.runtime.BlockContext;
  */
 public class ElseStatement extends Block implements ContinuingBlockStatementI {
 
+    private static final long serialVersionUID = 1L;
+
     @Override
     public boolean appendTo(Block finishedBlock) {
         if (finishedBlock instanceof IfStatement) {
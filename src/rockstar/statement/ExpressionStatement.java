@@ -5,6 +5,8 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
+import java.util.List;
 import rockstar.expression.Expression;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.Value;
@@ -15,6 +17,8 @@ import rockstar.runtime.Value;
  */
 public class ExpressionStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final Expression expression;
 
     public ExpressionStatement(Expression expression) {
@@ -31,6 +35,11 @@ public class ExpressionStatement extends Statement {
         //discard value
     }
     
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(expression);
+    }
+
     @Override
     protected String explain() {
         return expression.format();
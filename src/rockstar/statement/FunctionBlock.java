@@ -5,12 +5,16 @@
  */
 package rockstar.statement;
 
+import rockstar.engine.CompiledStatement;
+import rockstar.expression.Expression;
 import rockstar.runtime.RockstarReturnException;
 import java.util.ArrayList;
 import java.util.List;
 import rockstar.expression.VariableReference;
 import rockstar.runtime.BlockContext;
+import rockstar.runtime.FrameLayout;
 import rockstar.runtime.RockstarRuntimeException;
+import rockstar.runtime.RockstarTailCallException;
 import rockstar.runtime.Value;
 
 /**
@@ -19,8 +23,14 @@ import rockstar.runtime.Value;
  */
 public class FunctionBlock extends Block {
 
+    private static final long serialVersionUID = 1L;
+
     private final String name;
     private final List<VariableReference> parameterRefs = new ArrayList<>();
+    private final FrameLayout frameLayout = new FrameLayout();
+
+    // the function body compiled by the closure engine, if any
+    private transient CompiledStatement compiledBody = null;
 
     public FunctionBlock(String name) {
         this.name = name;
@@ -37,7 +47,24 @@ public class FunctionBlock extends Block {
     public List<VariableReference> getParameterRefs() {
         return parameterRefs;
     }
+
+    /**
+     * Frame-local variable slots, assigned by the VariableResolver
+     *
+     * @return
+     */
+    public FrameLayout getFrameLayout() {
+        return frameLayout;
+    }
     
+    public CompiledStatement getCompiledBody() {
+        return compiledBody;
+    }
+
+    public void setCompiledBody(CompiledStatement compiledBody) {
+        this.compiledBody = compiledBody;
+    }
+
     public boolean isAbstract() {
         return getStatements().isEmpty();
     }
@@ -61,26 +88,79 @@ public class FunctionBlock extends Block {
      * @return
      */
     public Value call(BlockContext ctx, List<Value> values) {
-        BlockContext funcCtx = new BlockContext(ctx, name);
-        List<VariableReference> refs = this.parameterRefs;
-        if (refs.size() != values.size()) {
-            throw new RockstarRuntimeException("Wrong number of arguments for function " + this.name + ": expected " + refs.size() + ", got " + values.size());
+        BlockContext funcCtx = enter(ctx, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            setParameter(funcCtx, i, values.get(i));
         }
+        return invoke(funcCtx);
+    }
 
-        for (int i = 0; i < values.size(); i++) {
-            funcCtx.setLocalVariable(refs.get(i), values.get(i));
-            funcCtx.afterExpression(refs.get(i), values.get(i));
+    /**
+     * Create the context of a function call. The parameters are set by
+     * setParameter(), then the function is executed by invoke().
+     *
+     * @param ctx Context for execution
+     * @param argCount number of parameters
+     * @return the function context
+     */
+    public BlockContext enter(BlockContext ctx, int argCount) {
+        if (parameterRefs.size() != argCount) {
+            throw new RockstarRuntimeException("Wrong number of arguments for function " + this.name + ": expected " + parameterRefs.size() + ", got " + argCount);
         }
+        BlockContext funcCtx = new BlockContext(ctx, name, frameLayout);
+        if (funcCtx.getLevel() > ctx.getEnv().getMaxCallDepth()) {
+            throw new RockstarRuntimeException("Maximum call depth " + ctx.getEnv().getMaxCallDepth() + " exceeded in function " + name);
+        }
+        return funcCtx;
+    }
+
+    /**
+     * Set a parameter of a function call
+     *
+     * @param funcCtx the function context
+     * @param index parameter index
+     * @param value parameter value
+     */
+    public void setParameter(BlockContext funcCtx, int index, Value value) {
+        VariableReference ref = parameterRefs.get(index);
+        funcCtx.setLocalVariable(ref, value);
+        funcCtx.afterExpression(ref, value);
+    }
 
-        try {
-            // execute the function body
-            super.execute(funcCtx);
-        } catch (RockstarReturnException retExp) {
-             // return value is set by the return statement
-            return retExp.getReturnValue();
+    /**
+     * Execute the function body. A self tail call restarts the body in the
+     * same context, so deep tail recursion does not grow the Java stack.
+     *
+     * @param funcCtx the function context, with the parameters set
+     * @return
+     */
+    public Value invoke(BlockContext funcCtx) {
+        while (true) {
+            try {
+                // execute the function body
+                if (compiledBody != null) {
+                    compiledBody.execute(funcCtx);
+                } else {
+                    super.execute(funcCtx);
+                }
+            } catch (RockstarReturnException retExp) {
+                // return value is set by the return statement
+                return retExp.getReturnValue();
+            } catch (RockstarTailCallException tailCall) {
+                // the parameters are set by the tail call
+                continue;
+            } catch (StackOverflowError soe) {
+                // reported with the Rockstar stack trace, collected while unwinding
+                throw new RockstarRuntimeException("Stack overflow at call depth " + funcCtx.getLevel() + " in function " + name);
+            }
+            // no explicite return value was set
+            return Value.MYSTERIOUS;
         }
-        // no explicite return value was set
-        return Value.MYSTERIOUS;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return new ArrayList<>(parameterRefs);
     }
 
     @Override
@@ -5,6 +5,8 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
+import java.util.List;
 import rockstar.expression.Expression;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.Value;
@@ -15,7 +17,9 @@ import rockstar.runtime.Value;
  */
 public class IfStatement extends Block {
 
-    private final Expression condition;
+    private static final long serialVersionUID = 1L;
+
+    private Expression condition;
     private ElseStatement elseStatement = null;
 
     public IfStatement(Expression condition) {
@@ -30,6 +34,10 @@ public class IfStatement extends Block {
         this.elseStatement = elseStmt;
     }
 
+    public ElseStatement getElseStatement() {
+        return elseStatement;
+    }
+
     @Override
     public void execute(BlockContext ctx) {
         Value v = condition.evaluate(ctx);
@@ -40,6 +48,18 @@ public class IfStatement extends Block {
         }
     }
 
+    @Override
+    public void replaceExpression(Expression original, Expression replacement) {
+        if (condition == original) {
+            condition = replacement;
+        }
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(condition);
+    }
+
     @Override
     protected String explain() {
         return "if " + condition.format();
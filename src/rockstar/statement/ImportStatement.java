@@ -19,6 +19,8 @@ import rockstar.runtime.QualifiedClassName;
  */
 public class ImportStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final PackagePath path;
     private final List<String> names;
 
@@ -6,6 +6,10 @@
 package rockstar.statement;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import rockstar.expression.Expression;
 import rockstar.expression.VariableReference;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.Value;
@@ -16,6 +20,8 @@ import rockstar.runtime.Value;
  */
 public class InputStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final VariableReference variable;
 
     public InputStatement(VariableReference variable) {
@@ -42,6 +48,11 @@ public class InputStatement extends Statement {
         }
     }
 
+    @Override
+    public List<Expression> getExpressions() {
+        return (variable == null) ? Collections.emptyList() : Arrays.asList(variable);
+    }
+
     @Override
     protected String explain() {
         return "input " + (variable == null ? "<line>" : variable.format());
@@ -21,6 +21,8 @@ import rockstar.runtime.Value;
  */
 public class InstantiationStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final VariableReference variable;
     private final String className;
     private final List<Expression> ctorParameterExprs = new ArrayList<>();
@@ -53,6 +55,14 @@ public class InstantiationStatement extends Statement {
         }
     }
 
+    @Override
+    public List<Expression> getExpressions() {
+        List<Expression> exprs = new ArrayList<>();
+        exprs.add(variable);
+        exprs.addAll(ctorParameterExprs);
+        return exprs;
+    }
+
     @Override
     protected String explain() {
         String paramsList = ctorParameterExprs.toString();
@@ -15,6 +15,8 @@ import rockstar.runtime.BlockContext;
  */
 public class InvalidStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     public InvalidStatement() {
         Line l = getLine();
         throw new ParseException("Statement parsing in " + l.getFileName() + " at line " + l.getLnum() + ":\n" + l.getOrigLine(), l);
@@ -7,10 +7,8 @@ package rockstar.statement;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import rockstar.expression.Expression;
 import rockstar.expression.ExpressionType;
@@ -29,6 +27,8 @@ import rockstar.runtime.Value;
  */
 public class IterateStatement extends Block {
 
+    private static final long serialVersionUID = 1L;
+
     private final Expression arrayExpr;
     private final Expression asExpr;
 
@@ -47,6 +47,7 @@ public class IterateStatement extends Block {
 
     @Override
     public void execute(BlockContext ctx) {
+        enterLoop();
         Value arrayValue = arrayExpr.evaluate(ctx);
 
         VariableReference keyVar = null;
@@ -78,45 +79,45 @@ public class IterateStatement extends Block {
         }
         
         // in case of assoc array we are iterating through the elements
-        List<Value> list = arrayValue.asListArray();
-        iterateList(list, keyVar, ctx, valueVar);
+        iterateList(arrayValue, keyVar, ctx, valueVar);
 
         // in case of assoc array we are iterating through the keys
-        Map<Value, Value> map = arrayValue.asAssocArray();
-        if (!map.isEmpty()) {
-            iterateAssocArray(valueVar, keyVar, map, ctx);
+        List<Value> keys = arrayValue.asSortedKeys();
+        if (!keys.isEmpty()) {
+            iterateAssocArray(valueVar, keyVar, keys, arrayValue, ctx);
         }
     }
 
-    private boolean iterateList(List<Value> list, VariableReference keyVar, BlockContext ctx, VariableReference valueVar) {
+    private boolean iterateList(Value arrayValue, VariableReference keyVar, BlockContext ctx, VariableReference valueVar) {
         boolean canContinue = true;
         Value currKey;
         Value currValue;
-        if (!list.isEmpty() ) {
-            Iterator<Value> listIter = list.iterator();
-            for(int i=0; canContinue && listIter.hasNext(); i++) {
-                // initialize local loop variables
-                if (keyVar != null) {
-                    currKey = Value.getValue(i);
-                    ctx.setVariable(keyVar, currKey);
-                }
-                currValue = listIter.next();
-                ctx.setVariable(valueVar, currValue);
-                
-                try {
-                    super.execute(ctx);
-                } catch (RockstarContinueException rce) {
-                    // continue exits the block, but not the loop
-                } catch (RockstarBreakException rbe) {
-                    // break exits the loop, too
-                    canContinue = false;
-                }
+        // the loop body may append to the array, the original elements are iterated
+        int size = arrayValue.getListSize();
+        // the elements are read through the array: a change in the loop body
+        // may replace its shared list with a private copy
+        for(int i=0; canContinue && i < size && i < arrayValue.getListSize(); i++) {
+            // initialize local loop variables
+            if (keyVar != null) {
+                currKey = Value.getValue(i);
+                ctx.setVariable(keyVar, currKey);
+            }
+            currValue = arrayValue.getListElement(i);
+            ctx.setVariable(valueVar, currValue);
+            
+            try {
+                super.execute(ctx);
+            } catch (RockstarContinueException rce) {
+                // continue exits the block, but not the loop
+            } catch (RockstarBreakException rbe) {
+                // break exits the loop, too
+                canContinue = false;
             }
         }
         return canContinue;
     }
 
-    private void iterateAssocArray(VariableReference valueVar, VariableReference keyVar, Map<Value, Value> map, BlockContext ctx) {
+    private void iterateAssocArray(VariableReference valueVar, VariableReference keyVar, List<Value> keys, Value arrayValue, BlockContext ctx) {
         Value currKey;
         Value currValue;
         boolean canContinue = true;
@@ -124,14 +125,13 @@ public class IterateStatement extends Block {
             keyVar = valueVar;
             valueVar = null;
         }
-        Value[] keys = new Value[map.size()];
-        Arrays.sort(map.keySet().toArray(keys));        
-        for(int i=0; canContinue && i < keys.length; i++) {
+        for(int i=0; canContinue && i < keys.size(); i++) {
             // initialize local loop variables
-            currKey = keys[i];
+            currKey = keys.get(i);
             ctx.setVariable(keyVar, currKey);
             if (valueVar != null) {
-                currValue = map.get(currKey);
+                // read through the array, the map may be copied on write
+                currValue = arrayValue.reference(currKey);
                 ctx.setVariable(valueVar, currValue);
             }
             
@@ -146,6 +146,11 @@ public class IterateStatement extends Block {
         }
     }
 
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(arrayExpr, asExpr);
+    }
+
     @Override
     protected String explain() {
         return "until " + arrayExpr.format() + " as " + asExpr.format();
@@ -5,7 +5,9 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
 import java.util.List;
+import rockstar.expression.Expression;
 import rockstar.expression.MutationExpression;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.Value;
@@ -16,6 +18,8 @@ import rockstar.runtime.Value;
  */
 public class JoinStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final MutationExpression expr;
 
     public JoinStatement(MutationExpression expr) {
@@ -26,7 +30,7 @@ public class JoinStatement extends Statement {
     public void execute(BlockContext ctx) {
         // evaluate array
         Value value = expr.getSourceExpr().evaluate(ctx);
-        List<Value> arrayValue = value.asListArray();
+        List<Value> arrayValue = value.asListView();
         // evaluate separator, use default if not present
         String sep = (expr.getParameterExpr() == null) ? "" : expr.getParameterExpr().evaluate(ctx).getString();
         // JOIN the array into a string
@@ -42,6 +46,11 @@ public class JoinStatement extends Statement {
 
     }
 
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(expr);
+    }
+
     @Override
     protected String explain() {
         return expr.getTargetReference().format() + " = join " + expr.format();
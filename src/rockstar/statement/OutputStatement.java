@@ -5,6 +5,8 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
+import java.util.List;
 import rockstar.expression.Expression;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.Value;
@@ -15,18 +17,36 @@ import rockstar.runtime.Value;
  */
 public class OutputStatement extends Statement {
     
-    private final Expression expression;
+    private static final long serialVersionUID = 1L;
+
+    private Expression expression;
 
     public OutputStatement(Expression expression) {
         this.expression = expression;
     }
 
+    public Expression getExpression() {
+        return expression;
+    }
+
     @Override
     public void execute(BlockContext ctx) {
         Value v = expression.evaluate(ctx);
         ctx.getEnv().getOutput().println(v.asScalar().getString());
     }
 
+    @Override
+    public void replaceExpression(Expression original, Expression replacement) {
+        if (expression == original) {
+            expression = replacement;
+        }
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(expression);
+    }
+
     @Override
     protected String explain() {
         return "print " + expression.format();
@@ -16,6 +16,8 @@ import rockstar.runtime.RockstarRuntimeException;
  */
 public class PkgDefStatement extends Statement {
     
+    private static final long serialVersionUID = 1L;
+
     private final PackagePath path;
 
     public PkgDefStatement(PackagePath path) {
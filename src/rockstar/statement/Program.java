@@ -15,6 +15,8 @@ import rockstar.runtime.Utils;
  */
 public class Program extends Block {
 
+    private static final long serialVersionUID = 1L;
+
     private final String name;
 
     public String getName() {
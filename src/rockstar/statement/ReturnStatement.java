@@ -5,8 +5,12 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
+import java.util.List;
 import rockstar.expression.Expression;
+import rockstar.expression.FunctionCall;
 import rockstar.runtime.RockstarReturnException;
+import rockstar.runtime.RockstarTailCallException;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.Value;
 
@@ -16,12 +20,32 @@ import rockstar.runtime.Value;
  */
 public class ReturnStatement extends Statement {
 
-    private final Expression expression;
+    private static final long serialVersionUID = 1L;
+
+    private Expression expression;
+
+    // the function this statement is a self tail call of, set by the TailCallResolver
+    private FunctionBlock tailCallOf = null;
+    // the self call restarting the function
+    private FunctionCall tailCall = null;
 
     public ReturnStatement(Expression expression) {
         this.expression = expression;
     }
 
+    public void setTailCallOf(FunctionBlock function, FunctionCall call) {
+        this.tailCallOf = function;
+        this.tailCall = call;
+    }
+
+    public boolean isTailCall() {
+        return tailCallOf != null;
+    }
+
+    public FunctionCall getTailCall() {
+        return tailCall;
+    }
+
     @Override
     boolean applyTo(Block block) {
         Block b = block;
@@ -34,12 +58,35 @@ public class ReturnStatement extends Statement {
         return false;
     }
 
+    public Expression getExpression() {
+        return expression;
+    }
+
     @Override
     public void execute(BlockContext ctx) {
+        if (tailCallOf != null && tailCall.setupTailCall(ctx, tailCallOf)) {
+            // restart the function with the new parameters
+            throw RockstarTailCallException.INSTANCE;
+        }
         Value value = expression.evaluate(ctx);
         throw new RockstarReturnException(value);
     }
 
+    @Override
+    public void replaceExpression(Expression original, Expression replacement) {
+        if (expression == original) {
+            expression = replacement;
+            // the replacement is evaluated, it is not a tail call any more
+            tailCallOf = null;
+            tailCall = null;
+        }
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(expression);
+    }
+
     @Override
     protected String explain() {
         return "return " + expression.format();
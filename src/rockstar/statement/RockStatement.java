@@ -21,8 +21,10 @@ import rockstar.runtime.Value;
  */
 public class RockStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final VariableReference variable;
-    private final Expression expression;
+    private Expression expression;
 
     public RockStatement(VariableReference variable, Expression expression) {
         this.variable = variable;
@@ -63,6 +65,18 @@ public class RockStatement extends Statement {
         }
     }
 
+    @Override
+    public void replaceExpression(Expression original, Expression replacement) {
+        if (expression == original) {
+            expression = replacement;
+        }
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return (expression == null) ? Arrays.asList(variable) : Arrays.asList(variable, expression);
+    }
+
     @Override
     protected String explain() {
         return "rock " + expression.format() + " into " + variable.format();
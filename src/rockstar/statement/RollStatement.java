@@ -5,9 +5,11 @@
  */
 package rockstar.statement;
 
+import rockstar.expression.Expression;
 import rockstar.expression.VariableReference;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.Value;
+import java.util.Arrays;
 import java.util.List;
 import rockstar.runtime.RockstarRuntimeException;
 
@@ -17,6 +19,8 @@ import rockstar.runtime.RockstarRuntimeException;
  */
 public class RollStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final VariableReference arrayVariable;
     private final VariableReference targetRef;
 
@@ -36,13 +40,7 @@ public class RollStatement extends Statement {
         Value array = arrayVariable.evaluate(ctx);
         if (array != null) {
             if (array.isArray()) {
-                Value targetValue;
-                List<Value> list = array.asListArray();
-                if (! list.isEmpty()) {
-                    targetValue = list.remove(0);
-                } else {
-                    targetValue = Value.MYSTERIOUS;
-                }
+                Value targetValue = array.roll();
                 if (this.targetRef != null) {
                     ctx.setVariable(this.targetRef, targetValue);
                 }
@@ -55,6 +53,11 @@ public class RollStatement extends Statement {
     }
 
 
+    @Override
+    public List<Expression> getExpressions() {
+        return (targetRef == null) ? Arrays.asList(arrayVariable) : Arrays.asList(arrayVariable, targetRef);
+    }
+
     @Override
     protected String explain() {
         return "roll " + targetRef.format() + " from " + arrayVariable.format();
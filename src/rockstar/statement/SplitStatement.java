@@ -5,9 +5,11 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
+import rockstar.expression.Expression;
 import rockstar.expression.MutationExpression;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.Value;
@@ -18,6 +20,8 @@ import rockstar.runtime.Value;
  */
 public class SplitStatement extends Statement {
 
+    private static final long serialVersionUID = 1L;
+
     private final MutationExpression expr;
 
     public SplitStatement(MutationExpression expr) {
@@ -67,6 +71,11 @@ public class SplitStatement extends Statement {
         return parts;
     }
 
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(expr);
+    }
+
     @Override
     protected String explain() {
         return expr.getTargetReference().format() + " = split " + expr.format();
@@ -5,6 +5,10 @@
  */
 package rockstar.statement;
 
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import rockstar.expression.Expression;
 import rockstar.parser.Line;
 import rockstar.runtime.BlockContext;
 
@@ -12,7 +16,9 @@ import rockstar.runtime.BlockContext;
  *
  * @author Gabor
  */
-public abstract class Statement {
+public abstract class Statement implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private Line line;
     private Block block;
@@ -52,6 +58,26 @@ public abstract class Statement {
 
     protected abstract String explain();
 
+    /**
+     * The expressions directly owned by this statement, including the
+     * assignment targets. Statements of a block are not included.
+     *
+     * @return
+     */
+    public List<Expression> getExpressions() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Replaces one of the expressions owned by this statement (used by the
+     * optimizer). Statements that do not support it keep the original.
+     *
+     * @param original one of the getExpressions()
+     * @param replacement
+     */
+    public void replaceExpression(Expression original, Expression replacement) {
+    }
+
     public Block getBlock() {
         return block;
     }
@@ -5,6 +5,9 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
+import java.util.List;
+import rockstar.expression.Expression;
 import rockstar.expression.VariableReference;
 import rockstar.runtime.BlockContext;
 import rockstar.runtime.RockNumber;
@@ -17,6 +20,8 @@ import rockstar.runtime.Value;
  */
 public class TurnStatement extends Statement {
     
+    private static final long serialVersionUID = 1L;
+
     public enum Direction {
         UP("ceil"),
         DOWN("floor"),
@@ -69,6 +74,11 @@ public class TurnStatement extends Statement {
         throw new RockstarRuntimeException("turn " + v.getType() + " " + direction);
     }
     
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(variable);
+    }
+
     @Override
     protected String explain() {
         return variable.format() + " = " + direction + " " + variable.format();
@@ -5,6 +5,8 @@
  */
 package rockstar.statement;
 
+import java.util.Arrays;
+import java.util.List;
 import rockstar.Rockstar;
 import rockstar.expression.Expression;
 import rockstar.runtime.BlockContext;
@@ -19,8 +21,10 @@ import rockstar.runtime.Value;
  */
 public class WhileStatement extends Block {
 
+    private static final long serialVersionUID = 1L;
 
-    private final Expression condition;
+
+    private Expression condition;
     private boolean negateCondition = false;
 
     public WhileStatement(Expression condition) {
@@ -36,8 +40,13 @@ public class WhileStatement extends Block {
         return condition;
     }
 
+    public boolean isNegateCondition() {
+        return negateCondition;
+    }
+
     @Override
     public void execute(BlockContext ctx) {
+        enterLoop();
         int loopCount = 0;
         boolean isInfiniteLoopsAllowed = (ctx.getEnv().getParameter("--infinite-loops") != null);
         Value v = condition.evaluate(ctx);
@@ -66,6 +75,18 @@ public class WhileStatement extends Block {
         }
     }
 
+    @Override
+    public void replaceExpression(Expression original, Expression replacement) {
+        if (condition == original) {
+            condition = replacement;
+        }
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(condition);
+    }
+
     @Override
     protected String explain() {
         if (negateCondition) {
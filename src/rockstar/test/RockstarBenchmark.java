@@ -0,0 +1,434 @@
+package rockstar.test;
+
+import com.sun.management.ThreadMXBean;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import rockstar.expression.Expression;
+import rockstar.expression.FunctionCall;
+import rockstar.parser.ParseException;
+import rockstar.parser.Parser;
+import rockstar.parser.ProgramCache;
+import rockstar.runtime.BlockContext;
+import rockstar.runtime.BlockContextListener;
+import rockstar.runtime.Environment;
+import rockstar.runtime.FileContext;
+import rockstar.runtime.LoggerListener;
+import rockstar.runtime.Utils;
+import rockstar.runtime.Value;
+import rockstar.statement.Program;
+import rockstar.statement.Statement;
+
+/**
+ * Simple benchmarks on Rockstar programs. The program output is discarded,
+ * input is taken from the *.rock.in files, if present.
+ *
+ * @author Gabor
+ */
+public class RockstarBenchmark {
+
+    private static final PrintStream NULL_OUTPUT = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+    });
+
+    public static final String MODE_MEMORY = "memory";
+    public static final String MODE_CONTROL = "control";
+    public static final String MODE_ALLOC = "alloc";
+    public static final String MODE_PARSE = "parse";
+
+    // control flow microbenchmarks: function returns, loop breaks and continues
+    private static final String[][] CONTROL_PROGRAMS = {
+        {"recursive calls (fibonacci 18)",
+            "Fib takes N\n"
+            + "If N is less than 2\n"
+            + "Give back N\n"
+            + "\n"
+            + "Put N minus 1 into M\n"
+            + "Put N minus 2 into K\n"
+            + "Give back Fib taking M plus Fib taking K\n"
+            + "\n"
+            + "Say Fib taking 18\n"},
+        {"break and continue (500 x 999 cycles)",
+            "Count is 0\n"
+            + "Total is 0\n"
+            + "While Count is less than 500\n"
+            + "Build Count up\n"
+            + "Inner is 0\n"
+            + "While Inner is less than 999\n"
+            + "Build Inner up\n"
+            + "If Inner is greater than 900\n"
+            + "Break it down\n"
+            + "\n"
+            + "If Inner is less than 100\n"
+            + "Continue\n"
+            + "\n"
+            + "Put Total plus Inner into Total\n"
+            + "\n"
+            + "\n"
+            + "Say Total\n"}
+    };
+
+    // a mix of the common statements, repeated in the generated parse benchmark program
+    private static final String[] PARSE_PROGRAM_CHUNK = {
+        "Midnight takes your heart and your soul",
+        "While your heart is as high as your soul",
+        "Put your heart without your soul into your heart",
+        "",
+        "Give back your heart",
+        "",
+        "Desire is a lovestruck ladykiller",
+        "My world is nothing",
+        "Put Midnight taking Desire, my world into Fire",
+        "If Fire is greater than 10 and my world is nothing",
+        "Build my world up",
+        "Say \"the fire is \" plus Fire",
+        "",
+        "Rock the list with Fire",
+        "Knock my world down",
+        "Midnight taking Fire, Desire",
+        "Shout Fire times 2 minus Desire over 3",
+        ""
+    };
+
+    private final Map<String, String> options;
+    private final int warmup;
+    private final int iterations;
+
+    public RockstarBenchmark(Map<String, String> options) {
+        this.options = options;
+        this.warmup = Integer.parseInt(options.getOrDefault("--warmup", "3"));
+        this.iterations = Integer.parseInt(options.getOrDefault("--iterations", "10"));
+    }
+
+    public void execute(List<String> paths) {
+        List<File> files = new ArrayList<>();
+        paths.forEach(path -> collectFiles(new File(path), files));
+        files.sort((f1, f2) -> f1.getName().compareTo(f2.getName()));
+
+        String mode = options.getOrDefault("--mode", "hooks");
+        switch (mode) {
+            case "hooks":
+                benchmarkHooks(files);
+                break;
+            case MODE_MEMORY:
+                benchmarkMemory();
+                break;
+            case MODE_CONTROL:
+                benchmarkControl();
+                break;
+            case MODE_ALLOC:
+                benchmarkAlloc(files);
+                break;
+            case MODE_PARSE:
+                benchmarkParse(files);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown benchmark mode: " + mode);
+        }
+    }
+
+    private void collectFiles(File f, List<File> files) {
+        if (f.isDirectory()) {
+            File[] dirFiles = f.listFiles();
+            if (dirFiles != null) {
+                for (File file : dirFiles) {
+                    if (file.isFile() && file.getName().endsWith(".rock")) {
+                        files.add(file);
+                    }
+                }
+            }
+        } else if (f.exists()) {
+            files.add(f);
+        }
+    }
+
+    /**
+     * Compares the uninstrumented execution to the execution with a listener
+     * that does nothing (like the run command without logging)
+     *
+     * @param files
+     */
+    private void benchmarkHooks(List<File> files) {
+        System.out.format("%-40s %12s %12s %10s\n", "Program", "plain ms", "hooks ms", "hook cost");
+        System.out.println(Utils.repeat("-", 77));
+        double totalPlain = 0;
+        double totalHooks = 0;
+        for (File file : files) {
+            Program prg = parse(file);
+            if (prg == null) {
+                continue;
+            }
+            byte[] input = readInput(file);
+            double[] times = measure(prg, input, null, new LoggerListener(options));
+            double plain = times[0];
+            double hooks = times[1];
+            System.out.format("%-40s %12.3f %12.3f %9.1f%%\n", file.getName(), plain, hooks, 100.0 * (hooks - plain) / plain);
+            totalPlain += plain;
+            totalHooks += hooks;
+        }
+        System.out.println(Utils.repeat("-", 77));
+        System.out.format("%-40s %12.3f %12.3f %9.1f%%\n", "Total", totalPlain, totalHooks, 100.0 * (totalHooks - totalPlain) / totalPlain);
+    }
+
+    /**
+     * Execution time of the programs that are dominated by the control flow
+     * statements: function returns, loop breaks and continues
+     */
+    private void benchmarkControl() {
+        System.out.format("%-40s %12s\n", "Program", "ms");
+        System.out.println(Utils.repeat("-", 53));
+        for (String[] control : CONTROL_PROGRAMS) {
+            Program prg = new Parser(control[1], control[0]).parse();
+            double[] times = measure(prg, new byte[0], (BlockContextListener) null);
+            System.out.format("%-40s %12.3f\n", control[0], times[0]);
+        }
+    }
+
+    /**
+     * Bytes allocated by the uninstrumented execution, per run and per
+     * function call. Without files the recursive control program is measured.
+     *
+     * @param files
+     */
+    private void benchmarkAlloc(List<File> files) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Allocated memory measurement is not supported by the JVM");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        System.out.format("%-40s %12s %14s %12s\n", "Program", "calls", "bytes/run", "bytes/call");
+        System.out.println(Utils.repeat("-", 81));
+        if (files.isEmpty()) {
+            String[] control = CONTROL_PROGRAMS[0];
+            measureAlloc(threads, control[0], new Parser(control[1], control[0]).parse(), new byte[0]);
+        }
+        for (File file : files) {
+            Program prg = parse(file);
+            if (prg != null) {
+                measureAlloc(threads, file.getName(), prg, readInput(file));
+            }
+        }
+    }
+
+    private void measureAlloc(ThreadMXBean threads, String name, Program prg, byte[] input) {
+        // the calls are counted in a separate, instrumented run
+        long[] calls = new long[1];
+        run(prg, input, new BlockContextListener() {
+            @Override
+            public void beforeStatement(BlockContext ctx, Statement stmt) {
+            }
+
+            @Override
+            public void beforeExpression(BlockContext ctx, Expression exp) {
+                if (exp instanceof FunctionCall) {
+                    calls[0]++;
+                }
+            }
+
+            @Override
+            public void afterExpression(BlockContext ctx, Expression exp, Value v) {
+            }
+        });
+        for (int i = 0; i < warmup; i++) {
+            run(prg, input, null);
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            run(prg, input, null);
+            bytes += threads.getThreadAllocatedBytes(threadId) - before;
+        }
+        double perRun = bytes / (double) iterations;
+        System.out.format("%-40s %12d %14.0f %12s\n", name, calls[0], perRun,
+                (calls[0] > 0) ? String.format("%.1f", perRun / calls[0]) : "-");
+    }
+
+    /**
+     * Parse throughput of the programs, compared to loading the precompiled
+     * program tree (.rockc content) from memory. Without files a generated
+     * program of --lines lines is parsed.
+     *
+     * @param files
+     */
+    private void benchmarkParse(List<File> files) {
+        System.out.format("%-40s %10s %12s %14s %12s %10s\n", "Program", "lines", "ms", "lines/s", "cached ms", "cached KB");
+        System.out.println(Utils.repeat("-", 103));
+        if (files.isEmpty()) {
+            int lines = Integer.parseInt(options.getOrDefault("--lines", "100000"));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < lines; i++) {
+                sb.append(PARSE_PROGRAM_CHUNK[i % PARSE_PROGRAM_CHUNK.length]).append('\n');
+            }
+            measureParse("generated program", sb.toString(), lines);
+        }
+        for (File file : files) {
+            try {
+                String source = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                measureParse(file.getName(), source, source.split("\n", -1).length);
+            } catch (IOException ex) {
+                System.out.format("%-40s %s\n", file.getName(), "skipped: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void measureParse(String name, String source, int lines) {
+        try {
+            byte[] key = ProgramCache.getKey(source.getBytes(StandardCharsets.UTF_8));
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ProgramCache.write(os, new Parser(source, name).parse(), key);
+            byte[] cached = os.toByteArray();
+            for (int i = 0; i < warmup; i++) {
+                new Parser(source, name).parse();
+                ProgramCache.read(new ByteArrayInputStream(cached), key);
+            }
+            long nanos = 0;
+            long cachedNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                new Parser(source, name).parse();
+                nanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                ProgramCache.read(new ByteArrayInputStream(cached), key);
+                cachedNanos += System.nanoTime() - start;
+            }
+            double millis = nanos / 1e6 / iterations;
+            double cachedMillis = cachedNanos / 1e6 / iterations;
+            System.out.format("%-40s %10d %12.3f %14.0f %12.3f %10d\n", name, lines, millis, lines * 1000.0 / millis,
+                    cachedMillis, cached.length / 1024);
+        } catch (ParseException | IOException ex) {
+            System.out.format("%-40s %s\n", name, "skipped: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Heap usage of large arrays, built the same way as the programs do
+     */
+    private void benchmarkMemory() {
+        int size = Integer.parseInt(options.getOrDefault("--size", "1000000"));
+        System.out.format("%-40s %12s %12s\n", "Array", "MB", "bytes/elem");
+        System.out.println(Utils.repeat("-", 66));
+        measureMemory("numbers by index", size, n -> {
+            Value array = Value.NULL;
+            for (int i = 0; i < n; i++) {
+                array = array.assign(Value.getValue(i), Value.getValue(i));
+            }
+            return array;
+        });
+        measureMemory("strings by key", size, n -> {
+            Value array = Value.NULL;
+            for (int i = 0; i < n; i++) {
+                Value s = Value.getValue("key" + i);
+                array = array.assign(s, s);
+            }
+            return array;
+        });
+        measureMemory("booleans by index", size, n -> {
+            Value array = Value.NULL;
+            for (int i = 0; i < n; i++) {
+                array = array.assign(Value.getValue(i), Value.getValue(i % 2 == 0));
+            }
+            return array;
+        });
+        measureMemory("small arrays by index", size, n -> {
+            Value array = Value.NULL;
+            for (int i = 0; i < n; i++) {
+                array = array.assign(Value.getValue(i), Value.EMPTY_ARRAY.plus(Value.NULL));
+            }
+            return array;
+        });
+    }
+
+    private void measureMemory(String name, int size, IntFunction<Value> builder) {
+        long before = usedMemory();
+        Value array = builder.apply(size);
+        long after = usedMemory();
+        // keep the array reachable until the measurement
+        if (array.getNumeric() == null) {
+            return;
+        }
+        System.out.format("%-40s %12.1f %12.1f\n", name, (after - before) / 1048576.0, (after - before) / (double) size);
+    }
+
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private Program parse(File file) {
+        try {
+            return new Parser(file.getPath()).parse();
+        } catch (FileNotFoundException | ParseException ex) {
+            System.out.format("%-40s %s\n", file.getName(), "skipped: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] readInput(File file) {
+        File inFile = new File(file.getPath() + ".in");
+        try {
+            return inFile.exists() ? Files.readAllBytes(inFile.toPath()) : new byte[0];
+        } catch (IOException ex) {
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Average execution times of a program in different setups. The setups
+     * are run alternately, so JIT warmup and GC affect them equally.
+     *
+     * @param prg
+     * @param input
+     * @param listeners the listener of each setup, null for uninstrumented
+     * @return milliseconds per setup
+     */
+    private double[] measure(Program prg, byte[] input, BlockContextListener... listeners) {
+        for (int i = 0; i < warmup; i++) {
+            for (BlockContextListener listener : listeners) {
+                run(prg, input, listener);
+            }
+        }
+        long[] nanos = new long[listeners.length];
+        for (int i = 0; i < iterations; i++) {
+            for (int j = 0; j < listeners.length; j++) {
+                long start = System.nanoTime();
+                run(prg, input, listeners[j]);
+                nanos[j] += System.nanoTime() - start;
+            }
+        }
+        double[] millis = new double[listeners.length];
+        for (int j = 0; j < listeners.length; j++) {
+            millis[j] = nanos[j] / 1e6 / iterations;
+        }
+        return millis;
+    }
+
+    private void run(Program prg, byte[] input, BlockContextListener listener) {
+        Environment env = new Environment(new ByteArrayInputStream(input), NULL_OUTPUT, NULL_OUTPUT, options);
+        env.setListener(listener);
+        FileContext ctx = new FileContext(env);
+        try {
+            prg.execute(ctx);
+        } catch (RuntimeException re) {
+            // the program is measured until the error
+        }
+    }
+
+}
@@ -19,11 +19,15 @@ import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
+import rockstar.Rockstar;
+import rockstar.engine.Engine;
 import rockstar.parser.Line;
 import rockstar.parser.ParseException;
 import rockstar.parser.Parser;
+import rockstar.parser.ProgramCache;
 import rockstar.runtime.Environment;
 import rockstar.runtime.FileContext;
 import rockstar.runtime.Utils;
@@ -87,11 +91,21 @@ public class TestRun {
             ByteArrayOutputStream errs = new ByteArrayOutputStream();
             PrintStream err = new PrintStream(errs, true, Utils.UTF8);
 
-            Environment env = new Environment(in, out, err, options);
+            Map<String, String> testOptions = getOptions(filename);
+            String invalidOption = Rockstar.checkOptions(testOptions);
+            if (invalidOption != null) {
+                result.setMessage("Invalid option value: " + invalidOption);
+                return result;
+            }
+
+            Environment env = new Environment(in, out, err, testOptions);
             FileContext ctx = new FileContext(env);
             try {
                 prg = new Parser(filename).parse();
-                prg.execute(ctx);
+                if (testOptions.containsKey("--precompiled")) {
+                    prg = precompile(prg);
+                }
+                execute(prg, ctx, Rockstar.getStackSize(testOptions));
             } catch (FileNotFoundException ex) {
                 result.setException(ex);
             }
@@ -120,6 +134,81 @@ public class TestRun {
         return result;
     }
 
+    /**
+     * The options of a test: the options of the test run, and the options in
+     * the .opts file of the test, if exists (e.g. --max-depth=50). Only the
+     * execution options can be set, like --max-depth or --stack-size.
+     *
+     * @param filename
+     * @return
+     * @throws IOException
+     */
+    private Map<String, String> getOptions(String filename) throws IOException {
+        File optsFile = new File(filename + ".opts");
+        if (!optsFile.exists()) {
+            return options;
+        }
+        Map<String, String> testOptions = new HashMap<>(options);
+        try (BufferedReader rdr = new BufferedReader(new InputStreamReader(new FileInputStream(optsFile), Utils.UTF8))) {
+            String line;
+            while ((line = rdr.readLine()) != null) {
+                for (String a : line.trim().split("\\s+")) {
+                    if (a.startsWith("-")) {
+                        Rockstar.addOption(testOptions, a);
+                    }
+                }
+            }
+        }
+        return testOptions;
+    }
+
+    /**
+     * Writes the program the same way as into a .rockc file, and loads it back
+     *
+     * @param prg
+     * @return the loaded program
+     * @throws IOException
+     */
+    private Program precompile(Program prg) throws IOException {
+        byte[] key = ProgramCache.getKey(new byte[0]);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ProgramCache.write(os, prg, key);
+        Program loaded = ProgramCache.read(new ByteArrayInputStream(os.toByteArray()), key);
+        if (loaded == null) {
+            throw new IOException("Precompiled program cannot be loaded");
+        }
+        return loaded;
+    }
+
+    /**
+     * Executes the program, on a separate thread if a stack size is set
+     *
+     * @param prg
+     * @param ctx
+     * @param stackSize the stack size in bytes, 0 for the current thread
+     * @throws Throwable
+     */
+    private void execute(Program prg, FileContext ctx, long stackSize) throws Throwable {
+        Engine engine = Engine.getEngine(ctx.getEnv());
+        if (stackSize == 0L) {
+            engine.execute(prg, ctx);
+            return;
+        }
+        Throwable[] error = new Throwable[1];
+        Thread runner = new Thread(null, () -> {
+            try {
+                engine.execute(prg, ctx);
+            } catch (Throwable t) {
+                error[0] = t;
+            }
+        }, "rockstar-test", stackSize);
+        runner.start();
+        runner.join();
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
     private void compareOutput(String filename, String expectedOutput, String output, TestResult result) {
         int lineNum = 1;
         Scanner exp = new Scanner(expectedOutput).useDelimiter("\\r?\\n");